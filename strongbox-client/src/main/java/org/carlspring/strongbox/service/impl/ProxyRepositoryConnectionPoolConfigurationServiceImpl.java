@@ -8,6 +8,7 @@ import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurati
 import org.glassfish.jersey.apache.connector.ApacheClientProperties;
 import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -41,6 +42,10 @@ public class ProxyRepositoryConnectionPoolConfigurationServiceImpl
     private int defaultMaxPerRoute;
     @Value("${pool.idleConnectionsTimeoutInSeconds:60}")
     private int idleConnectionsTimeoutInSeconds;
+    @Value("${pool.connectTimeoutInSeconds:30}")
+    private int connectTimeoutInSeconds;
+    @Value("${pool.readTimeoutInSeconds:60}")
+    private int readTimeoutInSeconds;
 
     @PostConstruct
     public void init()
@@ -69,6 +74,9 @@ public class ProxyRepositoryConnectionPoolConfigurationServiceImpl
         config.property(ApacheClientProperties.CONNECTION_MANAGER, poolingHttpClientConnectionManager);
         // property to prevent closing connection manager when client is closed
         config.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
+        // an unreachable remote host should fail the request, instead of holding on to the connection forever
+        config.property(ClientProperties.CONNECT_TIMEOUT, (int) TimeUnit.SECONDS.toMillis(connectTimeoutInSeconds));
+        config.property(ClientProperties.READ_TIMEOUT, (int) TimeUnit.SECONDS.toMillis(readTimeoutInSeconds));
 
         // TODO set basic authentication here instead of setting it always in client?
         /* CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
@@ -23,6 +23,8 @@ import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
  * ArtifactInputStream aos = (ArtifactInputStream) Files.newInputStream(repositoryPath); 
  * ...
  * </pre>
+ * Digests are only calculated for the algorithms which have been added (see {@link #addAlgorithm(String)}), so
+ * streams which are only used to serve the contents of an artifact should not have any added.
  * 
  * @author mtodorov
  */
@@ -99,12 +101,20 @@ public abstract class ArtifactInputStream
         return hexDigests;
     }
 
+    /**
+     * @return the digest for the specified algorithm, or <code>null</code>, if it is neither known, nor being
+     *         calculated
+     */
     public String getMessageDigestAsHexadecimalString(String algorithm)
     {
         if (hexDigests.containsKey(algorithm))
         {
             return hexDigests.get(algorithm);
         }
+        else if (!digests.containsKey(algorithm))
+        {
+            return null;
+        }
         else
         {
             // This method will invoke MessageDigest.digest() which will reset the bytes when it's done
@@ -126,7 +136,7 @@ public abstract class ArtifactInputStream
             throws IOException
     {
         int ch = in.read();
-        if (ch != -1)
+        if (ch != -1 && !digests.isEmpty())
         {
             for (Map.Entry entry : digests.entrySet())
             {
@@ -145,7 +155,7 @@ public abstract class ArtifactInputStream
             throws IOException
     {
         int numberOfBytesRead = in.read(bytes, off, len);
-        if (numberOfBytesRead != -1)
+        if (numberOfBytesRead > 0 && !digests.isEmpty())
         {
             for (Map.Entry entry : digests.entrySet())
             {
@@ -161,15 +171,7 @@ public abstract class ArtifactInputStream
     public int read(byte[] bytes)
             throws IOException
     {
-        int len = in.read(bytes);
-
-        for (Map.Entry entry : digests.entrySet())
-        {
-            MessageDigest digest = (MessageDigest) entry.getValue();
-            digest.update(bytes);
-        }
-
-        return len;
+        return read(bytes, 0, bytes.length);
     }
 
     InputStream getTarget()
@@ -4,8 +4,13 @@ import org.carlspring.commons.http.range.ByteRange;
 import org.carlspring.commons.io.AbstractByteRangeInputStream;
 import org.carlspring.commons.io.reloading.ReloadableInputStreamHandler;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
@@ -15,6 +20,16 @@ public class ByteRangeInputStream
 
     private long length;
 
+    /**
+     * The file this stream reads from, if it reads from a plain file.
+     */
+    private Path path;
+
+    /**
+     * The offset of the next byte to be read.
+     */
+    private long position;
+
     public ByteRangeInputStream(InputStream is)
             throws NoSuchAlgorithmException
     {
@@ -37,11 +52,77 @@ public class ByteRangeInputStream
         super(handler, byteRanges);
     }
 
+    /**
+     * Positions the stream at the specified offset. Streams which read from a plain file are positioned by seeking
+     * in the file, so the bytes in between are never read. All other streams can only be moved forward.
+     */
     @Override
-    public void reposition(long skipBytes)
+    public void reposition(long offset)
             throws IOException
     {
-        //Do noting here
+        if (offset == position)
+        {
+            return;
+        }
+
+        if (path != null)
+        {
+            SeekableByteChannel channel = Files.newByteChannel(path);
+            try
+            {
+                channel.position(offset);
+            }
+            catch (IOException e)
+            {
+                channel.close();
+
+                throw e;
+            }
+
+            in.close();
+            in = Channels.newInputStream(channel);
+        }
+        else if (offset > position)
+        {
+            long remaining = offset - position;
+            while (remaining > 0)
+            {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0)
+                {
+                    if (in.read() == -1)
+                    {
+                        throw new EOFException("Unable to position the stream at " + offset + ", as it ends at " +
+                                               (offset - remaining) + ".");
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+        else
+        {
+            throw new IOException("Unable to position the stream back at " + offset + ", as it is at " + position +
+                                  " and does not read from a file.");
+        }
+
+        position = offset;
+    }
+
+    /**
+     * Positions the stream at the start of the byte range and limits the reads to it. The limit of the byte range is
+     * the offset right after its last byte, or <code>0</code>, if it ends where the artifact ends.
+     */
+    @Override
+    public void setCurrentByteRange(ByteRange byteRange)
+            throws IOException
+    {
+        super.setCurrentByteRange(byteRange);
+
+        reposition(byteRange.getOffset());
+
+        bytesRead = 0;
+        limit = byteRange.getLimit() > 0 ? byteRange.getLimit() - byteRange.getOffset() : 0;
     }
 
     @Override
@@ -55,6 +136,35 @@ public class ByteRangeInputStream
         this.length = length;
     }
 
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public void setPath(Path path)
+    {
+        this.path = path;
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        if (hasReachedLimit())
+        {
+            return -1;
+        }
+
+        int b = in.read();
+        if (b != -1)
+        {
+            bytesRead++;
+            position++;
+        }
+
+        return b;
+    }
+
     @Override
     public int read(byte[] bytes,
                     int off,
@@ -66,10 +176,16 @@ public class ByteRangeInputStream
             return -1;
         }
 
+        if (limit > 0)
+        {
+            len = (int) Math.min(len, limit - bytesRead);
+        }
+
         int numberOfBytesRead = in.read(bytes, off, len);
-        if (limit > 0 && bytesRead < limit)
+        if (numberOfBytesRead > 0)
         {
             bytesRead += numberOfBytesRead;
+            position += numberOfBytesRead;
         }
 
         return numberOfBytesRead;
@@ -79,21 +195,26 @@ public class ByteRangeInputStream
     public int read(byte[] bytes)
             throws IOException
     {
-        if (hasReachedLimit())
+        return read(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public long skip(long n)
+            throws IOException
+    {
+        if (limit > 0)
         {
-            return -1;
+            n = Math.min(n, limit - bytesRead);
         }
 
-        int len = in.read(bytes);
-
-        bytesRead += len;
-
-        if (limit > 0 && bytesRead < limit)
+        long skipped = in.skip(n);
+        if (skipped > 0)
         {
-            bytesRead += len;
+            bytesRead += skipped;
+            position += skipped;
         }
 
-        return len;
+        return skipped;
     }
 
 }
@@ -4,6 +4,8 @@ import org.carlspring.commons.http.range.ByteRange;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class StreamUtils
 {
@@ -25,6 +27,45 @@ public class StreamUtils
         return bris.getLength();
     }
 
+    /**
+     * @return the file the stream reads from, if its contents can be sent as is, or <code>null</code>, if the stream
+     *         does not read from a plain file, or has already been positioned, or read from
+     */
+    public static Path getPath(ArtifactInputStream is)
+    {
+        InputStream target = is.getTarget();
+        if (!(target instanceof ByteRangeInputStream))
+        {
+            return null;
+        }
+        ByteRangeInputStream bris = (ByteRangeInputStream) target;
+        if (bris.getCurrentByteRange() != null || bris.getBytesRead() > 0)
+        {
+            return null;
+        }
+        return bris.getPath();
+    }
+
+    /**
+     * @return the time the file the stream reads from was last modified (in milliseconds), or <code>-1</code>, if
+     *         the stream does not read from a plain file
+     */
+    public static long getLastModified(ArtifactInputStream is)
+            throws IOException
+    {
+        InputStream target = is.getTarget();
+        if (!(target instanceof ByteRangeInputStream))
+        {
+            return -1L;
+        }
+        Path path = ((ByteRangeInputStream) target).getPath();
+        if (path == null)
+        {
+            return -1L;
+        }
+        return Files.getLastModifiedTime(path).toMillis();
+    }
+
     public static void setCurrentByteRange(ArtifactInputStream is,
                                            ByteRange byteRange)
             throws IOException
@@ -36,7 +77,6 @@ public class StreamUtils
         }
         ByteRangeInputStream bris = (ByteRangeInputStream) target;
         bris.setCurrentByteRange(byteRange);
-        bris.skip(byteRange.getOffset());
     }
 
 }
@@ -0,0 +1,87 @@
+package org.carlspring.strongbox.io;
+
+import org.carlspring.commons.http.range.ByteRange;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class ByteRangeInputStreamTest
+{
+
+    public static final Path BASEDIR = Paths.get("target/test-resources/byte-ranges");
+
+    private static final String CONTENTS = "0123456789abcdefghij";
+
+    private Path file;
+
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        Files.createDirectories(BASEDIR);
+
+        file = BASEDIR.resolve("contents.txt");
+        Files.write(file, CONTENTS.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testByteRangesOfFile()
+            throws Exception
+    {
+        try (ByteRangeInputStream bris = new ByteRangeInputStream(Files.newInputStream(file)))
+        {
+            bris.setPath(file);
+
+            assertEquals("abcde", read(bris, new ByteRange(10, 15)));
+
+            // Files can be read backwards as well.
+            assertEquals("234", read(bris, new ByteRange(2, 5)));
+            assertEquals("fghij", read(bris, new ByteRange(15, 0)));
+        }
+    }
+
+    @Test
+    public void testByteRangesOfStream()
+            throws Exception
+    {
+        InputStream is = new ByteArrayInputStream(CONTENTS.getBytes(StandardCharsets.US_ASCII));
+        try (ByteRangeInputStream bris = new ByteRangeInputStream(is))
+        {
+            assertEquals("234", read(bris, new ByteRange(2, 5)));
+            assertEquals("abcde", read(bris, new ByteRange(10, 15)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testStreamCannotBeRepositionedBackwards()
+            throws Exception
+    {
+        InputStream is = new ByteArrayInputStream(CONTENTS.getBytes(StandardCharsets.US_ASCII));
+        try (ByteRangeInputStream bris = new ByteRangeInputStream(is))
+        {
+            read(bris, new ByteRange(10, 15));
+            read(bris, new ByteRange(2, 5));
+        }
+    }
+
+    private String read(ByteRangeInputStream bris,
+                        ByteRange byteRange)
+            throws IOException
+    {
+        bris.setCurrentByteRange(byteRange);
+
+        return IOUtils.toString(bris, StandardCharsets.US_ASCII);
+    }
+
+}
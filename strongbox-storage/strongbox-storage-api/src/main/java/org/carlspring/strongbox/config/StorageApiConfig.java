@@ -8,18 +8,28 @@ import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
 import org.carlspring.strongbox.providers.search.OrientDbSearchProvider;
 import org.carlspring.strongbox.providers.search.SearchProviderRegistry;
 import org.carlspring.strongbox.services.impl.ArtifactResolutionServiceImpl;
+import org.carlspring.strongbox.storage.cache.GroupMetadataCache;
+import org.carlspring.strongbox.storage.cache.GroupResolutionCache;
+import org.carlspring.strongbox.storage.cache.NegativeLookupCache;
+import org.carlspring.strongbox.storage.checksum.ChecksumAttributeCache;
 import org.carlspring.strongbox.storage.checksum.ChecksumCacheManager;
+import org.carlspring.strongbox.storage.routing.RoutingRulesMatcher;
 import org.carlspring.strongbox.storage.validation.version.VersionValidator;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.orientechnologies.orient.core.entity.OEntityManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 @Configuration
 @ComponentScan({ "org.carlspring.strongbox.artifact",
@@ -72,6 +82,75 @@ public class StorageApiConfig
         return checksumCacheManager;
     }
 
+    @Bean(name = "checksumAttributeCache")
+    ChecksumAttributeCache checksumAttributeCache()
+    {
+        return new ChecksumAttributeCache(100000);
+    }
+
+    @Bean(name = "negativeLookupCache")
+    NegativeLookupCache negativeLookupCache()
+    {
+        return new NegativeLookupCache(10000);
+    }
+
+    @Bean(name = "groupResolutionCache")
+    GroupResolutionCache groupResolutionCache()
+    {
+        return new GroupResolutionCache(50000);
+    }
+
+    @Bean(name = "groupMetadataCache")
+    GroupMetadataCache groupMetadataCache()
+    {
+        return new GroupMetadataCache(10000);
+    }
+
+    @Bean(name = "routingRulesMatcher")
+    RoutingRulesMatcher routingRulesMatcher()
+    {
+        return new RoutingRulesMatcher();
+    }
+
+    /**
+     * Used by the group repositories which look their members up in parallel. When all the threads are busy,
+     * the lookups are performed by the requesting threads themselves.
+     */
+    @Bean(name = "groupLookupExecutor", destroyMethod = "shutdown")
+    ExecutorService groupLookupExecutor()
+    {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("group-lookup-");
+        threadFactory.setDaemon(true);
+
+        return new ThreadPoolExecutor(0,
+                                      64,
+                                      60L,
+                                      TimeUnit.SECONDS,
+                                      new SynchronousQueue<>(),
+                                      threadFactory,
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Used by the proxy repositories to download artifacts into their local caches in the background, while
+     * the requests which triggered the downloads are being served. When all the threads are busy, the downloads
+     * are performed by the requesting threads themselves, before serving them.
+     */
+    @Bean(name = "proxyCacheFillExecutor", destroyMethod = "shutdown")
+    ExecutorService proxyCacheFillExecutor()
+    {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("proxy-cache-fill-");
+        threadFactory.setDaemon(true);
+
+        return new ThreadPoolExecutor(0,
+                                      64,
+                                      60L,
+                                      TimeUnit.SECONDS,
+                                      new SynchronousQueue<>(),
+                                      threadFactory,
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     @Bean(name = "versionValidators")
     LinkedHashSet<VersionValidator> versionValidators()
     {
@@ -0,0 +1,195 @@
+package org.carlspring.strongbox.providers.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads a file which is still being written to by a download into the local cache, following it as it grows,
+ * until the download has completed.
+ * <p>
+ * The download is expected to write to a temporary file, which is moved to its final location once it is complete.
+ * If the temporary file has already been moved by the time this stream is opened, the final file is read instead.
+ * If the download fails, reading fails as well, instead of returning a truncated file.
+ * <p>
+ * The data is served while it is being written, but the last {@link #HOLD_BACK} bytes of the file are held back until
+ * the download has completed (which includes validating its checksums and moving it into place). A download which
+ * fails at the very end therefore never results in a complete, valid-looking copy of the file being served: reading
+ * fails before the last bytes have been returned, so that the response can be cut short.
+ */
+public class CacheFillInputStream
+        extends InputStream
+{
+
+    /**
+     * How long to wait (in milliseconds) for more data to be written, before checking the file again.
+     */
+    private static final long POLL_INTERVAL = 10L;
+
+    /**
+     * The number of bytes at the end of the file, which are only returned once the download has succeeded.
+     */
+    static final int HOLD_BACK = 8192;
+
+    private final Path tempPath;
+
+    private final Path path;
+
+    private final CompletableFuture<Boolean> download;
+
+    private FileChannel in;
+
+
+    /**
+     * @param tempPath the temporary file the download is writing to
+     * @param path     the location the file is moved to, once the download has completed
+     * @param download completes with <code>true</code>, once the file has been moved to its final location
+     */
+    public CacheFillInputStream(Path tempPath,
+                                Path path,
+                                CompletableFuture<Boolean> download)
+    {
+        this.tempPath = tempPath;
+        this.path = path;
+        this.download = download;
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        byte[] bytes = new byte[1];
+
+        int numberOfBytesRead = read(bytes, 0, 1);
+
+        return numberOfBytesRead == -1 ? -1 : bytes[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes,
+                    int off,
+                    int len)
+            throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+
+        open();
+
+        while (true)
+        {
+            // Check this before reading, so that no data written right before the download completed is missed.
+            boolean completed = download.isDone();
+            if (completed)
+            {
+                checkDownload();
+            }
+
+            long available = in.size() - in.position() - (completed ? 0 : HOLD_BACK);
+            if (available > 0)
+            {
+                return in.read(ByteBuffer.wrap(bytes, off, (int) Math.min(len, available)));
+            }
+
+            if (completed)
+            {
+                return -1;
+            }
+
+            await();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (in != null)
+        {
+            in.close();
+        }
+    }
+
+    private void open()
+            throws IOException
+    {
+        while (in == null)
+        {
+            boolean completed = download.isDone();
+
+            try
+            {
+                in = FileChannel.open(tempPath, StandardOpenOption.READ);
+
+                return;
+            }
+            catch (NoSuchFileException e)
+            {
+                // The download has either not started writing yet, or it has already been moved into place.
+                if (completed)
+                {
+                    checkDownload();
+
+                    in = FileChannel.open(path, StandardOpenOption.READ);
+
+                    return;
+                }
+            }
+
+            await();
+        }
+    }
+
+    private void await()
+            throws IOException
+    {
+        try
+        {
+            download.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for " + path + " to be downloaded!");
+        }
+        catch (ExecutionException | TimeoutException e)
+        {
+            // Either there is more to read, or the failure will be reported by checkDownload().
+        }
+    }
+
+    private void checkDownload()
+            throws IOException
+    {
+        try
+        {
+            if (!download.get())
+            {
+                throw new IOException("Failed to download " + path + "!");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for " + path + " to be downloaded!");
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Failed to download " + path + "!", e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.carlspring.strongbox.providers.io;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The attributes of a {@link RepositoryPath}, where each attribute is only computed the first time it is read, and
+ * then kept for as long as the map is.
+ * <p>
+ * Reading all of the entries (for example, via {@link #entrySet()}) computes all of the attributes.
+ */
+public class LazyAttributeMap
+        extends AbstractMap<String, Object>
+{
+
+    /**
+     * Stands for the attributes which have been computed to <code>null</code>, as these can't be kept in a
+     * {@link ConcurrentMap}.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * K: the name of the attribute
+     * V: computes the value of the attribute
+     */
+    private final Map<String, Supplier<Object>> suppliers = new LinkedHashMap<>();
+
+    /**
+     * K: the name of the attribute
+     * V: the value of the attribute, once it has been computed (or set)
+     */
+    private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<>();
+
+
+    /**
+     * Adds an attribute, which is computed by the supplier, when it is first read. Attributes should all be added
+     * before the map is handed out.
+     */
+    public LazyAttributeMap attribute(String name,
+                                      Supplier<Object> supplier)
+    {
+        suppliers.put(name, supplier);
+
+        return this;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        Object value = values.get(key);
+        if (value == null)
+        {
+            Supplier<Object> supplier = suppliers.get(key);
+            if (supplier == null)
+            {
+                return null;
+            }
+
+            Object computed = supplier.get();
+            value = values.putIfAbsent((String) key, computed != null ? computed : NULL);
+            if (value == null)
+            {
+                value = computed != null ? computed : NULL;
+            }
+        }
+
+        return value != NULL ? value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return suppliers.containsKey(key) || values.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key,
+                      Object value)
+    {
+        Object previous = containsKey(key) ? get(key) : null;
+
+        values.put(key, value != null ? value : NULL);
+
+        return previous;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet()
+    {
+        Set<String> keys = new LinkedHashSet<>(suppliers.keySet());
+        keys.addAll(values.keySet());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String key : keys)
+        {
+            result.put(key, get(key));
+        }
+
+        return Collections.unmodifiableMap(result).entrySet();
+    }
+
+}
@@ -17,6 +17,11 @@ public class RepositoryFileAttributes implements BasicFileAttributes
     public static final String TEMP = "temp";
     public static final String INDEX = "index";
     public static final String ARTIFACT = "artifact";
+    /**
+     * The stored checksums of an artifact (K: the digest algorithm, V: the checksum). This attribute is only
+     * available when it is read by name (for example, via <code>Files.getAttribute(path, CHECKSUMS)</code>).
+     */
+    public static final String CHECKSUMS = "checksums";
     
     private BasicFileAttributes basicAttributes;
     private Map<String, Object> attributes = new HashMap<>();
@@ -2,6 +2,9 @@ package org.carlspring.strongbox.providers.io;
 
 import java.nio.file.FileSystem;
 import java.nio.file.PathMatcher;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.carlspring.strongbox.io.FileSystemWrapper;
@@ -20,6 +23,14 @@ public abstract class RepositoryFileSystem
     private Repository repository;
     private RepositoryFileSystemProvider fileSystemProvider;
 
+    /**
+     * Worked out once, from the digest algorithms of the repository.
+     * <p>
+     * K: the digest algorithm
+     * V: the file extension of its checksums (for example: SHA-1 -> sha1)
+     */
+    private volatile Map<String, String> checksumExtensions;
+
     public RepositoryFileSystem(Repository repository,
                                 FileSystem storageFileSystem,
                                 RepositoryFileSystemProvider provider)
@@ -67,4 +78,39 @@ public abstract class RepositoryFileSystem
     
     public abstract Set<String> getDigestAlgorithmSet();
 
+    /**
+     * @return the file extensions of the checksums of this repository (K: the digest algorithm, V: the extension)
+     */
+    public Map<String, String> getChecksumExtensions()
+    {
+        Map<String, String> result = checksumExtensions;
+        if (result == null)
+        {
+            result = new LinkedHashMap<>();
+            for (String digestAlgorithm : getDigestAlgorithmSet())
+            {
+                result.put(digestAlgorithm, toChecksumExtension(digestAlgorithm));
+            }
+
+            checksumExtensions = result = Collections.unmodifiableMap(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the file extension of the checksums of the digest algorithm (for example: SHA-1 -> sha1)
+     */
+    public String getChecksumExtension(String digestAlgorithm)
+    {
+        String result = getChecksumExtensions().get(digestAlgorithm);
+
+        return result != null ? result : toChecksumExtension(digestAlgorithm);
+    }
+
+    private static String toChecksumExtension(String digestAlgorithm)
+    {
+        return digestAlgorithm.replace("-", "").toLowerCase();
+    }
+
 }
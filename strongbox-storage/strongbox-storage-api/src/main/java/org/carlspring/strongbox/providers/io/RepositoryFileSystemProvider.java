@@ -27,6 +27,7 @@ import java.nio.file.spi.FileSystemProvider;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 import org.apache.commons.io.FileUtils;
@@ -244,8 +245,7 @@ public abstract class RepositoryFileSystemProvider
         
         for (String digestAlgorithm : repositoryPath.getFileSystem().getDigestAlgorithmSet())
         {
-            //it creates Checksum file extension name form Digest algorithm name: SHA-1->sha1
-            String extension = digestAlgorithm.replaceAll("-", "").toLowerCase();
+            String extension = repositoryPath.getFileSystem().getChecksumExtension(digestAlgorithm);
             RepositoryPath checksumPath = repositoryPath.resolveSibling(repositoryPath.getFileName() + "." + extension);
             if (Files.exists(unwrap(checksumPath)))
             {
@@ -315,12 +315,7 @@ public abstract class RepositoryFileSystemProvider
             return;
         }
         
-        if (!Files.exists(unwrap(path).getParent()))
-        {
-            Files.createDirectories(unwrap(path).getParent());
-        }
-
-        Files.move(tempPath.getTarget(), path.getTarget(), StandardCopyOption.REPLACE_EXISTING);
+        publish(tempPath, path);
         
         RepositoryPathHandler pathHandler = getPathHandler();
         if (pathHandler != null)
@@ -371,6 +366,30 @@ public abstract class RepositoryFileSystemProvider
         return tempPath;
     }
 
+    /**
+     * @return a unique path in the temporary directory of the repository, where the contents of the path can be
+     *         written to, before they are published (see {@link #publish(RepositoryPath, RepositoryPath)})
+     */
+    public RepositoryPath getStagingPath(RepositoryPath path)
+            throws IOException
+    {
+        RepositoryPath tempPath = getTempPath(path);
+
+        return tempPath.resolveSibling(tempPath.getFileName() + "." + UUID.randomUUID() + ".part");
+    }
+
+    /**
+     * Moves a file, which has been completely written to the temporary directory, into place. The file is renamed
+     * atomically (where the storage supports this), so that readers never see a partially written file and don't
+     * need to lock it.
+     */
+    public void publish(RepositoryPath stagedPath,
+                        RepositoryPath path)
+            throws IOException
+    {
+        StagedOutputStream.publish(stagedPath.getTarget(), unwrap(path));
+    }
+
     public RepositoryPath getTrashPath(RepositoryPath path)
             throws IOException
     {
@@ -479,28 +498,35 @@ public abstract class RepositoryFileSystemProvider
             return targetAttributes;
         }
         
-        RepositoryPath repositoryPath = (RepositoryPath) path;
-        RepositoryPath repositoryRelativePath = repositoryPath.getRepositoryRelative();
-        
         RepositoryFileAttributes repositoryFileAttributes = new RepositoryFileAttributes(targetAttributes,
-                getRepositoryFileAttributes(repositoryRelativePath));
+                getRepositoryFileAttributes((RepositoryPath) path));
         
         return (A) repositoryFileAttributes;
     }
 
-    protected abstract Map<String,Object> getRepositoryFileAttributes(RepositoryPath repositoryRelativePath);
-    
-    public boolean isChecksum(RepositoryPath path)
+    /**
+     * @return the repository attributes of the path, which are only created once for each {@link RepositoryPath}
+     */
+    protected Map<String, Object> getRepositoryFileAttributes(RepositoryPath repositoryPath)
     {
-        for (String e : path.getFileSystem().getDigestAlgorithmSet())
+        Map<String, Object> attributes = repositoryPath.getRepositoryFileAttributes();
+        if (attributes == null)
         {
-            if (path.getFileName().toString().endsWith("." + e.replaceAll("-", "").toLowerCase()))
-            {
-                return true;
-            }
+            attributes = createRepositoryFileAttributes(repositoryPath.getRepositoryRelative());
+            repositoryPath.setRepositoryFileAttributes(attributes);
         }
+
+        return attributes;
+    }
+
+    protected abstract Map<String,Object> createRepositoryFileAttributes(RepositoryPath repositoryRelativePath);
+    
+    public boolean isChecksum(RepositoryPath path)
+    {
+        String fileName = path.getFileName().toString();
+        int i = fileName.lastIndexOf('.');
         
-        return false;
+        return i >= 0 && path.getFileSystem().getChecksumExtensions().containsValue(fileName.substring(i + 1));
     }
     
     public Map<String, Object> readAttributes(Path path,
@@ -514,10 +540,7 @@ public abstract class RepositoryFileSystemProvider
         }
         
         //TODO: Make an implementation in accordance with the specification
-        RepositoryPath repositoryPath = (RepositoryPath) path;
-        RepositoryPath repositoryRelativePath = repositoryPath.getRepositoryRelative();
-        
-        return getRepositoryFileAttributes(repositoryRelativePath);
+        return getRepositoryFileAttributes((RepositoryPath) path);
     }
 
     public void setAttribute(Path path,
@@ -10,6 +10,7 @@ import java.nio.file.WatchEvent.Modifier;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * This implementation wraps target {@link Path} implementation, which can be an "CloudPath" or common
@@ -24,6 +25,11 @@ public class RepositoryPath
     private Path target;
     private RepositoryFileSystem fileSystem;
 
+    /**
+     * The repository attributes of this path, which are kept from the first time they are read.
+     */
+    private volatile Map<String, Object> repositoryFileAttributes;
+
     public RepositoryPath(Path target,
                           RepositoryFileSystem fileSystem)
     {
@@ -46,6 +52,16 @@ public class RepositoryPath
         return fileSystem;
     }
 
+    Map<String, Object> getRepositoryFileAttributes()
+    {
+        return repositoryFileAttributes;
+    }
+
+    void setRepositoryFileAttributes(Map<String, Object> repositoryFileAttributes)
+    {
+        this.repositoryFileAttributes = repositoryFileAttributes;
+    }
+
     public boolean isAbsolute()
     {
         return getTarget().isAbsolute();
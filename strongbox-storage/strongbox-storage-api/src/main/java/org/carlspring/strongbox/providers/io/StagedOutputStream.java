@@ -0,0 +1,218 @@
+package org.carlspring.strongbox.providers.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the contents of a file into a staging file and publishes them (see {@link #publish(Path, Path)}), when the
+ * stream is closed.
+ * <p>
+ * If writing fails, or the stream has been aborted (for example, because the source the contents were read from
+ * failed), the staging file is removed on close, instead of being published, so that a failed write never leaves a
+ * truncated file behind.
+ */
+public class StagedOutputStream
+        extends FilterOutputStream
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedOutputStream.class);
+
+    private final Path stagedPath;
+
+    private final Path path;
+
+    private boolean failed;
+
+    private boolean closed;
+
+    private boolean published;
+
+
+    /**
+     * Stages the contents in a hidden file next to the path.
+     */
+    public StagedOutputStream(Path path)
+            throws IOException
+    {
+        this(path.resolveSibling("." + path.getFileName() + "." + UUID.randomUUID() + ".part"), path);
+    }
+
+    private StagedOutputStream(Path stagedPath,
+                               Path path)
+            throws IOException
+    {
+        this(Files.newOutputStream(stagedPath), stagedPath, path);
+    }
+
+    public StagedOutputStream(OutputStream out,
+                              Path stagedPath,
+                              Path path)
+    {
+        super(out);
+        this.stagedPath = stagedPath;
+        this.path = path;
+    }
+
+    public Path getStagedPath()
+    {
+        return stagedPath;
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     * @return whether the contents have been moved into place (which is only the case once the stream has been
+     *         closed, without having failed, or been aborted)
+     */
+    public boolean isPublished()
+    {
+        return published;
+    }
+
+    @Override
+    public void write(int b)
+            throws IOException
+    {
+        try
+        {
+            out.write(b);
+        }
+        catch (IOException e)
+        {
+            failed = true;
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(byte[] b,
+                      int off,
+                      int len)
+            throws IOException
+    {
+        try
+        {
+            out.write(b, off, len);
+        }
+        catch (IOException e)
+        {
+            failed = true;
+
+            throw e;
+        }
+    }
+
+    /**
+     * Makes sure the contents are discarded, instead of published, when the stream is closed.
+     */
+    public void abort()
+    {
+        failed = true;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        closed = true;
+
+        try
+        {
+            out.close();
+
+            if (!failed)
+            {
+                publish(stagedPath, path);
+
+                published = true;
+            }
+        }
+        catch (IOException e)
+        {
+            failed = true;
+
+            throw e;
+        }
+        finally
+        {
+            if (failed)
+            {
+                Files.deleteIfExists(stagedPath);
+            }
+        }
+    }
+
+    /**
+     * Moves a file, which has been completely written, into place. The file is renamed atomically (where the storage
+     * supports this), so that readers never see a partially written file and don't need to lock it.
+     * <p>
+     * The contents are synced to disk before the file is renamed and the directory is synced after it, so that a
+     * published file survives a crash and is never found empty, or truncated, afterwards.
+     */
+    public static void publish(Path stagedPath,
+                               Path path)
+            throws IOException
+    {
+        if (!Files.exists(path.getParent()))
+        {
+            Files.createDirectories(path.getParent());
+        }
+
+        force(stagedPath);
+
+        try
+        {
+            Files.move(stagedPath, path, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            logger.debug(String.format("Atomic moves are not supported, replacing: path-[%s]", path));
+
+            Files.move(stagedPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try
+        {
+            force(path.getParent());
+        }
+        catch (IOException e)
+        {
+            // Directories can't be opened for syncing on every platform (Windows, for example).
+            logger.debug(String.format("Failed to sync directory: path-[%s]", path.getParent()), e);
+        }
+    }
+
+    private static void force(Path path)
+            throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            channel.force(true);
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // The storage isn't backed by files (and has nothing to sync).
+        }
+    }
+
+}
@@ -4,9 +4,11 @@ import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.spi.FileSystemProvider;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -18,6 +20,7 @@ import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
+import org.carlspring.strongbox.providers.io.LazyAttributeMap;
 import org.carlspring.strongbox.providers.io.RepositoryFileAttributes;
 import org.carlspring.strongbox.providers.io.RepositoryFileSystem;
 import org.carlspring.strongbox.providers.io.RepositoryFileSystemProvider;
@@ -29,6 +32,7 @@ import org.carlspring.strongbox.providers.storage.StorageProviderRegistry;
 import org.carlspring.strongbox.repository.RepositoryFeatures;
 import org.carlspring.strongbox.repository.RepositoryManagementStrategy;
 import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.checksum.ChecksumAttributeCache;
 import org.carlspring.strongbox.storage.repository.Repository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +48,17 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractLayoutProvider.class);
 
+    private static final Set<String> DIGEST_ALGORITHM_SET = Collections.unmodifiableSet(
+            Stream.of(MessageDigestAlgorithms.MD5, MessageDigestAlgorithms.SHA_1).collect(Collectors.toSet()));
+
+    /**
+     * The file systems are created once per repository, as they are needed for every path that is resolved.
+     * <p>
+     * K: storageId:repositoryId
+     * V: the file system of the repository
+     */
+    private final ConcurrentMap<String, RepositoryFileSystem> repositoryFileSystems = new ConcurrentHashMap<>();
+
     @Inject
     protected LayoutProviderRegistry layoutProviderRegistry;
     
@@ -52,6 +67,9 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
     
     @Inject
     private ConfigurationManager configurationManager;
+
+    @Inject
+    private ChecksumAttributeCache checksumAttributeCache;
     
     
     public LayoutProviderRegistry getLayoutProviderRegistry()
@@ -84,6 +102,16 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
         this.configurationManager = configurationManager;
     }
 
+    public ChecksumAttributeCache getChecksumAttributeCache()
+    {
+        return checksumAttributeCache;
+    }
+
+    public void setChecksumAttributeCache(ChecksumAttributeCache checksumAttributeCache)
+    {
+        this.checksumAttributeCache = checksumAttributeCache;
+    }
+
     public Configuration getConfiguration()
     {
         return configurationManager.getConfiguration();
@@ -111,8 +139,7 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
 
     public Set<String> getDigestAlgorithmSet()
     {
-        return Stream.of(MessageDigestAlgorithms.MD5, MessageDigestAlgorithms.SHA_1)
-                     .collect(Collectors.toSet());
+        return DIGEST_ALGORITHM_SET;
     }
 
     
@@ -148,23 +175,66 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
         return repositoryFileSystem.getRootDirectory();
     }
     
+    /**
+     * @return the file system of the repository, which is only created again, if the configuration of the
+     *         repository has changed (and a new {@link Repository} has taken the place of the previous one)
+     */
     public RepositoryFileSystem getRepositoryFileSystem(Repository repository)
     {
+        String key = getRepositoryKey(repository);
+
+        RepositoryFileSystem repositoryFileSystem = repositoryFileSystems.get(key);
+        if (repositoryFileSystem != null && repositoryFileSystem.getRepository() == repository)
+        {
+            return repositoryFileSystem;
+        }
+
         FileSystem storageFileSystem = getStorageProvider(repository).getFileSystem();
-        RepositoryFileSystem repositoryFileSystem = new RepositoryLayoutFileSystem(repository,
-                                                                                   storageFileSystem,
-                                                                                   getProvider(repository));
-                                                                                   
+        repositoryFileSystem = new RepositoryLayoutFileSystem(repository,
+                                                              storageFileSystem,
+                                                              createProvider(repository));
+
+        repositoryFileSystems.put(key, repositoryFileSystem);
+
         return repositoryFileSystem;
     }
 
+    /**
+     * Drops the file system of a repository which has been removed, or reconfigured, so that it isn't held on to.
+     */
+    public void removeRepositoryFileSystem(String storageId,
+                                           String repositoryId)
+    {
+        repositoryFileSystems.remove(getRepositoryKey(storageId, repositoryId));
+    }
+
+    public void removeRepositoryFileSystems()
+    {
+        repositoryFileSystems.clear();
+    }
+
     public RepositoryFileSystemProvider getProvider(Repository repository)
+    {
+        return getRepositoryFileSystem(repository).provider();
+    }
+
+    protected RepositoryFileSystemProvider createProvider(Repository repository)
     {
         FileSystemProvider storageFileSystemProvider = getStorageProvider(repository).getFileSystemProvider();
-        RepositoryLayoutFileSystemProvider repositoryFileSystemProvider = new RepositoryLayoutFileSystemProvider(
-                storageFileSystemProvider, getRepositoryPathHandler(), this);
-        
-        return repositoryFileSystemProvider;
+
+        return new RepositoryLayoutFileSystemProvider(storageFileSystemProvider, getRepositoryPathHandler(), this);
+    }
+
+    private String getRepositoryKey(Repository repository)
+    {
+        return getRepositoryKey(repository.getStorage() != null ? repository.getStorage().getId() : "",
+                                repository.getId());
+    }
+
+    private String getRepositoryKey(String storageId,
+                                    String repositoryId)
+    {
+        return storageId + ":" + repositoryId;
     }
 
     @Override
@@ -210,9 +280,8 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
             return;
         }
         
-        RepositoryFileSystemProvider provider = getProvider(repository);
-        provider.setAllowsForceDelete(force);
-        provider.delete(repositoryPath);
+        // The provider is shared, so the flag is passed along, rather than set on it.
+        getProvider(repository).delete(repositoryPath, force);
         
         logger.debug("Removed /" + repositoryId + "/" + path);
     }
@@ -337,33 +406,38 @@ public abstract class AbstractLayoutProvider<T extends ArtifactCoordinates,
         return Files.exists(repositoryPath.resolve(path));
     }
     
-    protected Map<String, Object> getRepositoryFileAttributes(RepositoryPath repositoryRelativePath)
+    /**
+     * @return the attributes of the path, each of which is only computed when it is first read
+     */
+    protected Map<String, Object> createRepositoryFileAttributes(RepositoryPath repositoryRelativePath)
     {
         RepositoryFileSystemProvider provider = repositoryRelativePath.getFileSystem().provider();
 
-        boolean isChecksum = provider.isChecksum(repositoryRelativePath);
-        boolean isIndex = repositoryRelativePath.startsWith(".index");
-        boolean isTemp = repositoryRelativePath.startsWith(".temp");
-        boolean isTrash = repositoryRelativePath.startsWith(".trash");
-        boolean isMetadata = isMetadata(repositoryRelativePath.toString());
-        boolean isHidden = isTemp || isTrash || isMetadata;
-        Boolean isArtifact = !isChecksum && !isIndex && !isHidden;
-
-        Map<String, Object> result = new HashMap<>();
-        result.put(RepositoryFileAttributes.CHECKSUM, isChecksum);
-        result.put(RepositoryFileAttributes.INDEX, isIndex);
-        result.put(RepositoryFileAttributes.TEMP, isTemp);
-        result.put(RepositoryFileAttributes.TRASH, isTrash);
-        result.put(RepositoryFileAttributes.METADATA, isMetadata);
-        result.put(RepositoryFileAttributes.ARTIFACT, isArtifact);
-
-        if (!Files.isDirectory(repositoryRelativePath.getTarget()) && isArtifact)
-        {
-            result.put(RepositoryFileAttributes.COORDINATES, getArtifactCoordinates(repositoryRelativePath.toString()));
-        }
-        
+        LazyAttributeMap result = new LazyAttributeMap();
+        result.attribute(RepositoryFileAttributes.CHECKSUM, () -> provider.isChecksum(repositoryRelativePath))
+              .attribute(RepositoryFileAttributes.INDEX, () -> repositoryRelativePath.startsWith(".index"))
+              .attribute(RepositoryFileAttributes.TEMP, () -> repositoryRelativePath.startsWith(".temp"))
+              .attribute(RepositoryFileAttributes.TRASH, () -> repositoryRelativePath.startsWith(".trash"))
+              .attribute(RepositoryFileAttributes.METADATA, () -> isMetadata(repositoryRelativePath.toString()))
+              .attribute(RepositoryFileAttributes.ARTIFACT,
+                         () -> !isTrue(result, RepositoryFileAttributes.CHECKSUM) &&
+                               !isTrue(result, RepositoryFileAttributes.INDEX) &&
+                               !isTrue(result, RepositoryFileAttributes.TEMP) &&
+                               !isTrue(result, RepositoryFileAttributes.TRASH) &&
+                               !isTrue(result, RepositoryFileAttributes.METADATA))
+              .attribute(RepositoryFileAttributes.COORDINATES,
+                         () -> isTrue(result, RepositoryFileAttributes.ARTIFACT) &&
+                               !Files.isDirectory(repositoryRelativePath.getTarget()) ?
+                               getArtifactCoordinates(repositoryRelativePath.toString()) : null);
+
         return result;
     }
+
+    private static boolean isTrue(Map<String, Object> attributes,
+                                  String attribute)
+    {
+        return Boolean.TRUE.equals(attributes.get(attribute));
+    }
     
     protected abstract boolean isMetadata(String string);
 
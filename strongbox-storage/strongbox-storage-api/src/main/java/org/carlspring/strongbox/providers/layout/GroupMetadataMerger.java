@@ -0,0 +1,27 @@
+package org.carlspring.strongbox.providers.layout;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Implemented by the layout providers whose metadata files have to be merged across the members of a group
+ * repository, instead of being served from the first member which has them.
+ */
+public interface GroupMetadataMerger
+{
+
+    /**
+     * @return <code>true</code>, if the file at this (repository relative) path is merged across the members of a
+     *         group repository
+     */
+    boolean isMergedInGroup(String path);
+
+    /**
+     * @param contents the contents of the members' copies of the metadata file, in the order of the members
+     * @return the merged metadata file
+     */
+    byte[] merge(String path,
+                 List<byte[]> contents)
+            throws IOException;
+
+}
@@ -5,12 +5,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.spi.FileSystemProvider;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.carlspring.commons.io.reloading.FSReloadableInputStreamHandler;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
@@ -21,6 +33,8 @@ import org.carlspring.strongbox.providers.io.RepositoryFileAttributes;
 import org.carlspring.strongbox.providers.io.RepositoryFileSystemProvider;
 import org.carlspring.strongbox.providers.io.RepositoryPath;
 import org.carlspring.strongbox.providers.io.RepositoryPathHandler;
+import org.carlspring.strongbox.providers.io.StagedOutputStream;
+import org.carlspring.strongbox.storage.checksum.ChecksumAttributeCache;
 import org.carlspring.strongbox.util.MessageDigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +83,7 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
         }
         bris.setReloadableInputStreamHandler(new FSReloadableInputStreamHandler(path.toFile()));
         bris.setLength(Files.size(path));
+        bris.setPath(((RepositoryPath) path).getTarget());
         
         try
         {
@@ -85,60 +100,130 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
                                                  ArtifactCoordinates artifactCoordinates)
             throws NoSuchAlgorithmException, IOException
     {
-        Set<String> digestAlgorithmSet = path.getFileSystem().getDigestAlgorithmSet();
-        ArtifactInputStream result = new ArtifactInputStream(artifactCoordinates, is, digestAlgorithmSet)
+        // The digests are not calculated while reading, unless a caller explicitly asks for them (by adding the
+        // algorithms to the stream), as the stream is mostly used to serve the artifact.
+        ArtifactInputStream result = new ArtifactInputStream(artifactCoordinates, is, Collections.emptySet())
         {
 
         };
-        // Add digest algorithm only if it is not a Checksum (we don't need a Checksum of Checksum).
-        if (Boolean.TRUE.equals(Files.getAttribute(path, RepositoryFileAttributes.CHECKSUM)))
+        result.getHexDigests().putAll(getChecksums(path));
+
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(Path path,
+                                              String attributes,
+                                              LinkOption... options)
+            throws IOException
+    {
+        if (path instanceof RepositoryPath && RepositoryFileAttributes.CHECKSUMS.equals(attributes))
         {
-            return result;
+            return Collections.singletonMap(RepositoryFileAttributes.CHECKSUMS, getChecksums((RepositoryPath) path));
         }
-        digestAlgorithmSet.stream()
-                               .forEach(a ->
-                                        {
-                                            String checksum = null;
-                                            try
-                                            {
-                                                checksum = getChecksum(path, result, a);
-                                            }
-                                            catch (IOException e)
-                                            {
-                                                logger.error(String.format("Failed to get checksum for [%s]", path), e);
-                                            }
-                                            if (checksum == null)
-                                            {
-                                                return;
-                                            }
-
-                                            result.getHexDigests().put(a, checksum);
-                                        });
-        return result;
+
+        return super.readAttributes(path, attributes, options);
+    }
+
+    /**
+     * @return the stored checksums of the artifact (K: the digest algorithm, V: the checksum), which are read from
+     *         the checksum files only if they have not been recorded for the current contents of the artifact
+     */
+    public Map<String, String> getChecksums(RepositoryPath path)
+            throws IOException
+    {
+        // Only artifacts have checksums (we don't need a Checksum of Checksum).
+        if (isChecksum(path))
+        {
+            return Collections.emptyMap();
+        }
+
+        Path target = path.getTarget();
+        BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+
+        ChecksumAttributeCache checksumAttributeCache = layoutProvider.getChecksumAttributeCache();
+        Map<String, String> checksums = checksumAttributeCache != null ?
+                                        checksumAttributeCache.get(target, attributes) :
+                                        null;
+        if (checksums != null)
+        {
+            return checksums;
+        }
+
+        checksums = new LinkedHashMap<>();
+        for (String digestAlgorithm : path.getFileSystem().getDigestAlgorithmSet())
+        {
+            String checksum = getChecksum(path, digestAlgorithm);
+            if (checksum != null)
+            {
+                checksums.put(digestAlgorithm, checksum);
+            }
+        }
+
+        if (checksumAttributeCache != null)
+        {
+            checksumAttributeCache.put(target, attributes, checksums);
+        }
+
+        return checksums;
     }
 
     private String getChecksum(RepositoryPath path,
-                               ArtifactInputStream is,
-                               String digestAlgorithm) throws IOException
+                               String digestAlgorithm)
+            throws IOException
     {
-        RepositoryPath checksumPath = getChecksumPath(path, digestAlgorithm);
-        
-        String checksum = null;
-        if (Files.exists(checksumPath) && Files.size(checksumPath) != 0)
+        Path checksumPath = getChecksumPath(path, digestAlgorithm).getTarget();
+        try (InputStream is = Files.newInputStream(checksumPath))
         {
-            checksum = MessageDigestUtils.readChecksumFile(Files.newInputStream(checksumPath.getTarget()));
+            return MessageDigestUtils.readChecksumFile(is);
         }
-        else
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Records the contents of a checksum file, which has just been stored, or deleted, as the checksum of its
+     * artifact.
+     */
+    private void updateChecksum(RepositoryPath checksumPath,
+                                boolean deleted)
+    {
+        ChecksumAttributeCache checksumAttributeCache = layoutProvider.getChecksumAttributeCache();
+        if (checksumAttributeCache == null)
+        {
+            return;
+        }
+
+        String fileName = checksumPath.getFileName().toString();
+        for (String digestAlgorithm : checksumPath.getFileSystem().getDigestAlgorithmSet())
         {
-            checksum = is.getMessageDigestAsHexadecimalString(digestAlgorithm);
+            String checksumExtension = ".".concat(checksumPath.getFileSystem().getChecksumExtension(digestAlgorithm));
+            if (!fileName.endsWith(checksumExtension))
+            {
+                continue;
+            }
+
+            RepositoryPath artifactPath = checksumPath.resolveSibling(
+                    fileName.substring(0, fileName.length() - checksumExtension.length()));
+            try
+            {
+                String checksum = deleted ? null : getChecksum(artifactPath, digestAlgorithm);
+
+                checksumAttributeCache.update(artifactPath.getTarget(), digestAlgorithm, checksum);
+            }
+            catch (IOException e)
+            {
+                checksumAttributeCache.invalidate(artifactPath.getTarget());
+            }
         }
-        return checksum;
     }
 
     protected RepositoryPath getChecksumPath(RepositoryPath path,
                                              String digestAlgorithm)
     {
-        String checksumExtension = ".".concat(digestAlgorithm.toLowerCase().replaceAll("-", ""));
+        String checksumExtension = ".".concat(path.getFileSystem().getChecksumExtension(digestAlgorithm));
         return path.resolveSibling(path.getFileName().toString().concat(checksumExtension));
     }
     
@@ -156,7 +241,21 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
         Files.createDirectories(path.getParent());
         ArtifactCoordinates artifactCoordinates = (ArtifactCoordinates) Files.getAttribute(path, RepositoryFileAttributes.COORDINATES);
         
-        OutputStream os = super.newOutputStream(path, options);
+        OutputStream os;
+        RepositoryPath repositoryPath = (RepositoryPath) path;
+        if (!Arrays.asList(options).contains(StandardOpenOption.APPEND) && isStaged(repositoryPath))
+        {
+            // The contents are only published (renamed into place), once they have all been written.
+            RepositoryPath stagedPath = getStagingPath(repositoryPath);
+            os = new StagedOutputStream(super.newOutputStream(stagedPath, options),
+                                        stagedPath.getTarget(),
+                                        repositoryPath.getTarget());
+        }
+        else
+        {
+            os = super.newOutputStream(path, options);
+        }
+        
         try
         {
             return decorateStream((RepositoryPath) path, os, artifactCoordinates);
@@ -167,6 +266,17 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
         }
     }
 
+    /**
+     * @return whether the writes to the path have to be staged in the temporary directory (which is the case for
+     *         everything, except for the temporary directory and the trash themselves)
+     */
+    protected boolean isStaged(RepositoryPath path)
+            throws IOException
+    {
+        return !Boolean.TRUE.equals(Files.getAttribute(path, RepositoryFileAttributes.TEMP)) &&
+               !Boolean.TRUE.equals(Files.getAttribute(path, RepositoryFileAttributes.TRASH));
+    }
+
     protected ArtifactOutputStream decorateStream(RepositoryPath path,
                                                   OutputStream os,
                                                   ArtifactCoordinates artifactCoordinates)
@@ -176,16 +286,43 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
         ArtifactOutputStream result = new ArtifactOutputStream(os, artifactCoordinates)
         {
 
+            @Override
+            public void abort()
+            {
+                super.abort();
+
+                if (os instanceof StagedOutputStream)
+                {
+                    ((StagedOutputStream) os).abort();
+                }
+            }
+
             @Override
             public void close()
                 throws IOException
             {
                 super.close();
+
+                // The checksums are only written (and recorded) for contents which have actually been stored.
+                if (isAborted() || os instanceof StagedOutputStream && !((StagedOutputStream) os).isPublished())
+                {
+                    return;
+                }
+
+                // The digests have been calculated while the artifact was written, so it doesn't need to be read
+                // again to produce its checksum files.
+                if (!isChecksum(path))
+                {
+                    writeChecksums(path, getDigestMap());
+                }
+
                 RepositoryPathHandler pathHandler = getPathHandler();
                 if (pathHandler != null)
                 {
                     pathHandler.postProcess(path);
                 }
+
+                recordChecksums(path, this);
             }
             
         };
@@ -211,33 +348,105 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
         return result;
     }
     
+    /**
+     * Records the checksums which have been calculated while storing an artifact, or the contents of a stored
+     * checksum file, so that they don't have to be read from the checksum files later on.
+     */
+    private void recordChecksums(RepositoryPath path,
+                                 ArtifactOutputStream os)
+            throws IOException
+    {
+        ChecksumAttributeCache checksumAttributeCache = layoutProvider.getChecksumAttributeCache();
+        if (checksumAttributeCache == null)
+        {
+            return;
+        }
+
+        if (isChecksum(path))
+        {
+            updateChecksum(path, false);
+
+            return;
+        }
+
+        Path target = path.getTarget();
+        if (os.getDigests().isEmpty() || !Files.exists(target))
+        {
+            checksumAttributeCache.invalidate(target);
+
+            return;
+        }
+
+        checksumAttributeCache.put(target,
+                                   Files.readAttributes(target, BasicFileAttributes.class),
+                                   os.getDigestMap());
+    }
+
+    @Override
+    public void moveFromTemporaryDirectory(RepositoryPath path)
+            throws IOException
+    {
+        RepositoryPath tempPath = getTempPath(path);
+
+        super.moveFromTemporaryDirectory(path);
+
+        if (isChecksum(path))
+        {
+            updateChecksum(path, false);
+
+            return;
+        }
+
+        // The checksum files (and checksums) have been produced while the artifact was written into the temporary
+        // directory.
+        for (String digestAlgorithm : path.getFileSystem().getDigestAlgorithmSet())
+        {
+            RepositoryPath tempChecksumPath = getChecksumPath(tempPath, digestAlgorithm);
+            if (Files.exists(tempChecksumPath.getTarget()))
+            {
+                publish(tempChecksumPath, getChecksumPath(path, digestAlgorithm));
+            }
+        }
+
+        ChecksumAttributeCache checksumAttributeCache = layoutProvider.getChecksumAttributeCache();
+        if (checksumAttributeCache != null)
+        {
+            checksumAttributeCache.move(tempPath.getTarget(), path.getTarget());
+        }
+    }
+
+    @Override
+    protected void doDeletePath(RepositoryPath repositoryPath,
+                                boolean force)
+            throws IOException
+    {
+        super.doDeletePath(repositoryPath, force);
+
+        if (isChecksum(repositoryPath))
+        {
+            updateChecksum(repositoryPath, true);
+        }
+    }
+
     public void storeChecksum(RepositoryPath basePath,
                               boolean forceRegeneration)
         throws IOException
     {
-        Files.walk(basePath)
-             .filter(p -> !Files.isDirectory(p))
-             .filter(p -> {
-                 try
-                 {
-                     return !Boolean.TRUE.equals(Files.getAttribute(p, RepositoryFileAttributes.CHECKSUM));
-                 }
-                 catch (IOException e)
-                 {
-                     logger.error(String.format("Failed to read attributes for [%s]", p), e);
-                 }
-                 return false;
-             })
-             .forEach(p -> {
-                 try
-                 {
-                     writeChecksum((RepositoryPath) p, forceRegeneration);
-                 }
-                 catch (IOException e)
-                 {
-                     logger.error(String.format("Failed to write checksum for [%s]", p), e);
-                 }
-             });
+        try (Stream<Path> paths = Files.walk(basePath))
+        {
+            paths.filter(p -> !Files.isDirectory(p))
+                 .filter(p -> !isChecksum((RepositoryPath) p))
+                 .forEach(p -> {
+                     try
+                     {
+                         writeChecksum((RepositoryPath) p, forceRegeneration);
+                     }
+                     catch (IOException e)
+                     {
+                         logger.error(String.format("Failed to write checksum for [%s]", p), e);
+                     }
+                 });
+        }
     }
 
     
@@ -245,36 +454,123 @@ public class RepositoryLayoutFileSystemProvider extends RepositoryFileSystemProv
                               boolean force)
         throws IOException
     {
+        Set<String> digestAlgorithmSet = path.getFileSystem()
+                                             .getDigestAlgorithmSet()
+                                             .stream()
+                                             .filter(a -> force || !Files.exists(getChecksumPath(path, a)))
+                                             .collect(Collectors.toSet());
+        if (digestAlgorithmSet.isEmpty())
+        {
+            return;
+        }
+
+        // The checksums may already be known for the current contents of the artifact, in which case it isn't read.
+        ChecksumAttributeCache checksumAttributeCache = layoutProvider.getChecksumAttributeCache();
+        Map<String, String> checksums = checksumAttributeCache != null ?
+                                        checksumAttributeCache.get(path.getTarget(),
+                                                                   Files.readAttributes(path.getTarget(),
+                                                                                        BasicFileAttributes.class)) :
+                                        null;
+        if (checksums != null && checksums.keySet().containsAll(digestAlgorithmSet))
+        {
+            Map<String, String> missingChecksums = new LinkedHashMap<>(checksums);
+            missingChecksums.keySet().retainAll(digestAlgorithmSet);
+
+            writeChecksums(path, missingChecksums);
+
+            return;
+        }
+
+        Map<String, MessageDigest> digests = new HashMap<>();
         try (ArtifactInputStream is = newInputStream(path))
         {
-            Set<String> digestAlgorithmSet = path.getFileSystem().getDigestAlgorithmSet();
-            digestAlgorithmSet.stream()
-                              .forEach(p ->
-                                       {
-                                           String checksum = is.getHexDigests()
-                                                               .get(p);
-                                           RepositoryPath checksumPath = getChecksumPath(path, p);
-                                           if (Files.exists(checksumPath) && !force)
-                                           {
-                                               return;
-                                           }
-                                           try
-                                           {
-                                               Files.write(checksumPath.getTarget(), checksum.getBytes());
-                                           }
-                                           catch (IOException e)
-                                           {
-                                               logger.error(String.format("Failed to write checksum for [%s]",
-                                                                          checksumPath.toString()), e);
-                                           }
-                                       });
+            for (String algorithm : digestAlgorithmSet)
+            {
+                is.addAlgorithm(algorithm);
+            }
+
+            byte[] bytes = new byte[8192];
+            //noinspection StatementWithEmptyBody
+            while (is.read(bytes) != -1)
+            {
+            }
+
+            digests.putAll(is.getDigests());
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
         }
+
+        digests.forEach((algorithm, digest) -> {
+            RepositoryPath checksumPath = getChecksumPath(path, algorithm);
+            try
+            {
+                write(checksumPath, getDigestStringifier().apply(digest.digest()).getBytes());
+            }
+            catch (IOException e)
+            {
+                logger.error(String.format("Failed to write checksum for [%s]",
+                                           checksumPath.toString()), e);
+            }
+
+            updateChecksum(checksumPath, false);
+        });
+    }
+
+    /**
+     * Writes the checksum files of an artifact from checksums which have already been calculated (K: the digest
+     * algorithm, V: the checksum), instead of reading the artifact again.
+     */
+    public void writeChecksums(RepositoryPath path,
+                               Map<String, String> checksums)
+    {
+        checksums.forEach((algorithm, checksum) -> {
+            RepositoryPath checksumPath = getChecksumPath(path, algorithm);
+            try
+            {
+                write(checksumPath, checksum.getBytes());
+            }
+            catch (IOException e)
+            {
+                logger.error(String.format("Failed to write checksum for [%s]",
+                                           checksumPath.toString()), e);
+            }
+        });
+    }
+
+    private void write(RepositoryPath path,
+                       byte[] bytes)
+            throws IOException
+    {
+        if (!isStaged(path))
+        {
+            Files.write(path.getTarget(), bytes);
+
+            return;
+        }
+
+        RepositoryPath stagedPath = getStagingPath(path);
+        try (OutputStream os = new StagedOutputStream(Files.newOutputStream(stagedPath.getTarget()),
+                                                      stagedPath.getTarget(),
+                                                      path.getTarget()))
+        {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * @return the function used to convert digests into the format the checksums are stored in
+     */
+    protected Function<byte[], String> getDigestStringifier()
+    {
+        return MessageDigestUtils::convertToHexadecimalString;
     }
     
     @Override
-    protected Map<String, Object> getRepositoryFileAttributes(RepositoryPath repositoryRelativePath)
+    protected Map<String, Object> createRepositoryFileAttributes(RepositoryPath repositoryRelativePath)
     {
-        return layoutProvider.getRepositoryFileAttributes(repositoryRelativePath);
+        return layoutProvider.createRepositoryFileAttributes(repositoryRelativePath);
     }
     
 }
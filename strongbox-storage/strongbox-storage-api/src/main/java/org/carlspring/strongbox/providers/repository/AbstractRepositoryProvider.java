@@ -4,6 +4,7 @@ import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
 import org.carlspring.strongbox.providers.storage.StorageProviderRegistry;
+import org.carlspring.strongbox.storage.cache.NegativeLookupCache;
 
 import javax.inject.Inject;
 
@@ -25,6 +26,9 @@ public abstract class AbstractRepositoryProvider implements RepositoryProvider
     @Inject
     private ConfigurationManager configurationManager;
 
+    @Inject
+    private NegativeLookupCache negativeLookupCache;
+
 
     public RepositoryProviderRegistry getRepositoryProviderRegistry()
     {
@@ -66,6 +70,16 @@ public abstract class AbstractRepositoryProvider implements RepositoryProvider
         this.configurationManager = configurationManager;
     }
 
+    public NegativeLookupCache getNegativeLookupCache()
+    {
+        return negativeLookupCache;
+    }
+
+    public void setNegativeLookupCache(NegativeLookupCache negativeLookupCache)
+    {
+        this.negativeLookupCache = negativeLookupCache;
+    }
+
     public Configuration getConfiguration()
     {
         return configurationManager.getConfiguration();
@@ -0,0 +1,237 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.client.ArtifactResolver;
+import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurationService;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds one long-lived {@link ArtifactResolver} (and, thus, one Jersey client bound to the shared pooling
+ * connection manager) per proxy repository, so that the client does not have to be set up again for every
+ * remote fetch.
+ * <p>
+ * The resolvers are created on first use and need to be removed whenever the respective repository is updated
+ * or removed. A resolver whose repository's remote settings have changed in the meantime is re-created.
+ * <p>
+ * The resolvers are handed out as {@link Lease}s, which have to be closed once the remote requests made with them
+ * (including the reading of the responses) have completed. A removed resolver is only closed after all of its
+ * leases have been closed, so that the downloads which are still in progress can complete.
+ */
+@Component("artifactResolverRegistry")
+public class ArtifactResolverRegistry
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactResolverRegistry.class);
+
+    @Inject
+    private ProxyRepositoryConnectionPoolConfigurationService proxyRepositoryConnectionPoolConfigurationService;
+
+    /**
+     * K: storageId:repositoryId
+     * V: the resolver
+     */
+    private final ConcurrentMap<String, ManagedArtifactResolver> resolvers = new ConcurrentHashMap<>();
+
+
+    public ArtifactResolverRegistry()
+    {
+    }
+
+    /**
+     * @return a lease of the resolver of the repository, which has to be closed, once it's no longer used
+     */
+    public Lease acquireArtifactResolver(Repository repository)
+    {
+        String key = getKey(repository.getStorage().getId(), repository.getId());
+        RemoteRepository remoteRepository = repository.getRemoteRepository();
+
+        while (true)
+        {
+            ManagedArtifactResolver resolver = resolvers.get(key);
+            if (resolver != null && !isUpToDate(resolver.artifactResolver, remoteRepository))
+            {
+                logger.debug("The remote repository settings of " + key + " have changed.");
+
+                remove(key, resolver);
+                resolver = null;
+            }
+
+            if (resolver == null)
+            {
+                resolver = resolvers.computeIfAbsent(key, k -> createArtifactResolver(repository));
+            }
+
+            if (resolver.retain())
+            {
+                return new Lease(resolver);
+            }
+
+            // The resolver has been removed (and closed) in the meantime.
+            resolvers.remove(key, resolver);
+        }
+    }
+
+    public void removeArtifactResolver(String storageId,
+                                       String repositoryId)
+    {
+        String key = getKey(storageId, repositoryId);
+
+        ManagedArtifactResolver resolver = resolvers.get(key);
+        if (resolver != null)
+        {
+            remove(key, resolver);
+        }
+    }
+
+    @PreDestroy
+    public void removeArtifactResolvers()
+    {
+        resolvers.forEach(this::remove);
+    }
+
+    public int getSize()
+    {
+        return resolvers.size();
+    }
+
+    private ManagedArtifactResolver createArtifactResolver(Repository repository)
+    {
+        RemoteRepository remoteRepository = repository.getRemoteRepository();
+
+        ArtifactResolver resolver = new ArtifactResolver(proxyRepositoryConnectionPoolConfigurationService.getClient());
+        resolver.setRepositoryBaseUrl(remoteRepository.getUrl());
+        resolver.setUsername(remoteRepository.getUsername());
+        resolver.setPassword(remoteRepository.getPassword());
+
+        if (repository.getHttpConnectionPool() != null)
+        {
+            proxyRepositoryConnectionPoolConfigurationService.setMaxPerRepository(remoteRepository.getUrl(),
+                                                                                   repository.getHttpConnectionPool()
+                                                                                             .getAllocatedConnections());
+        }
+
+        logger.debug("Created an artifact resolver for " + getKey(repository.getStorage().getId(), repository.getId()) +
+                     " (" + remoteRepository.getUrl() + ").");
+
+        return new ManagedArtifactResolver(resolver);
+    }
+
+    private void remove(String key,
+                        ManagedArtifactResolver resolver)
+    {
+        if (resolvers.remove(key, resolver))
+        {
+            // Drop the registry's own reference. The resolver is closed, once the leases have been closed as well.
+            resolver.release();
+        }
+    }
+
+    private boolean isUpToDate(ArtifactResolver resolver,
+                               RemoteRepository remoteRepository)
+    {
+        String url = remoteRepository.getUrl();
+
+        return resolver.getRepositoryBaseUrl().equals(url.endsWith("/") ? url : url + "/") &&
+               Objects.equals(resolver.getUsername(), remoteRepository.getUsername()) &&
+               Objects.equals(resolver.getPassword(), remoteRepository.getPassword());
+    }
+
+    private String getKey(String storageId,
+                          String repositoryId)
+    {
+        return storageId + ":" + repositoryId;
+    }
+
+    /**
+     * A resolver along with the number of references to it: one held by the registry, for as long as the resolver
+     * is registered, and one for each open lease.
+     */
+    private static class ManagedArtifactResolver
+    {
+
+        private final ArtifactResolver artifactResolver;
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+
+        ManagedArtifactResolver(ArtifactResolver artifactResolver)
+        {
+            this.artifactResolver = artifactResolver;
+        }
+
+        /**
+         * @return <code>false</code>, if the resolver has already been closed
+         */
+        boolean retain()
+        {
+            int count;
+            do
+            {
+                count = references.get();
+                if (count == 0)
+                {
+                    return false;
+                }
+            }
+            while (!references.compareAndSet(count, count + 1));
+
+            return true;
+        }
+
+        void release()
+        {
+            if (references.decrementAndGet() == 0)
+            {
+                // The connection manager is shared, so this only releases the client's own resources.
+                artifactResolver.close();
+            }
+        }
+
+    }
+
+    /**
+     * Keeps the resolver from being closed, until the lease is closed.
+     */
+    public static class Lease
+            implements AutoCloseable
+    {
+
+        private final ManagedArtifactResolver resolver;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+
+        private Lease(ManagedArtifactResolver resolver)
+        {
+            this.resolver = resolver;
+        }
+
+        public ArtifactResolver getArtifactResolver()
+        {
+            return resolver.artifactResolver;
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed.compareAndSet(false, true))
+            {
+                resolver.release();
+            }
+        }
+
+    }
+
+}
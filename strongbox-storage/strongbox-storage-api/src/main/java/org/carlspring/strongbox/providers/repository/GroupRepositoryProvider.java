@@ -4,19 +4,44 @@ import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
+import org.carlspring.strongbox.providers.io.RepositoryFileSystem;
+import org.carlspring.strongbox.providers.io.RepositoryPath;
+import org.carlspring.strongbox.providers.layout.GroupMetadataMerger;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
+import org.carlspring.strongbox.resource.ResourceCloser;
 import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.cache.GroupMetadataCache;
+import org.carlspring.strongbox.storage.cache.GroupResolutionCache;
 import org.carlspring.strongbox.storage.repository.Repository;
-import org.carlspring.strongbox.storage.routing.RoutingRule;
 import org.carlspring.strongbox.storage.routing.RoutingRules;
-import org.carlspring.strongbox.storage.routing.RuleSet;
+import org.carlspring.strongbox.storage.routing.RoutingRulesMatcher;
+import org.carlspring.strongbox.util.MessageDigestUtils;
 
 import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -33,6 +58,22 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
 
     private static final String ALIAS = "group";
 
+    @Inject
+    private GroupResolutionCache groupResolutionCache;
+
+    @Inject
+    private GroupMetadataCache groupMetadataCache;
+
+    @Inject
+    private RoutingRulesMatcher routingRulesMatcher;
+
+    @Inject
+    @Named("groupLookupExecutor")
+    private ExecutorService groupLookupExecutor;
+
+    @Inject
+    private RemoteRepositoryCircuitBreaker remoteRepositoryCircuitBreaker;
+
 
     @PostConstruct
     @Override
@@ -64,11 +105,33 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
 
         Repository groupRepository = storage.getRepository(repositoryId);
 
+        // Metadata files are merged across all the members, instead of being served from the first one which has them.
+        LayoutProvider layoutProvider = getLayoutProvider(groupRepository, getLayoutProviderRegistry());
+        if (layoutProvider instanceof GroupMetadataMerger)
+        {
+            String metadataPath = getMergedMetadataPath(groupRepository, layoutProvider, artifactPath);
+            if (metadataPath != null)
+            {
+                return getMergedMetadataInputStream(groupRepository, layoutProvider, metadataPath, artifactPath);
+            }
+        }
+
+        // Go straight to the member which the path was last resolved from, if it is known.
+        final ArtifactInputStream isResolvedMember = getInputStreamFromResolvedMember(groupRepository, artifactPath);
+        if (isResolvedMember != null)
+        {
+            return isResolvedMember;
+        }
+
+        if (getNegativeLookupCache().contains(groupRepository, artifactPath))
+        {
+            return null;
+        }
+
         // Check the routing rules first.
         // Check the routing accept rules for the specified repository.
-        final ArtifactInputStream isRepositoryAccept = getInputStreamFromRepositoryAcceptRules(repositoryId,
-                                                                                               artifactPath,
-                                                                                               storage);
+        final ArtifactInputStream isRepositoryAccept = getInputStreamFromRepositoryAcceptRules(groupRepository,
+                                                                                               artifactPath);
 
         if (isRepositoryAccept != null)
         {
@@ -76,119 +139,526 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
         }
 
         // Check the routing rules for wildcard accept rules
-        final ArtifactInputStream isWildcardRepositoryAccept = getInputStreamFromWildcardRepositoryAcceptRules(artifactPath, storage);
+        final ArtifactInputStream isWildcardRepositoryAccept = getInputStreamFromWildcardRepositoryAcceptRules(groupRepository,
+                                                                                                               artifactPath);
         if (isWildcardRepositoryAccept != null)
         {
             return isWildcardRepositoryAccept;
         }
 
-        // Handle:
-        // - Repository deny
-        // - Repository wildcard repository deny
-        final RuleSet denyRules = getRoutingRules().getDenyRules(repositoryId);
-        final RuleSet wildcardDenyRules = getRoutingRules().getWildcardDeniedRules();
-
         // If there are no matches in the routing rules, then loop as usual:
+        List<Repository> members = getMembers(groupRepository, artifactPath);
+
+        MemberLookup lookup = new MemberLookup(groupRepository, artifactPath, members);
+
+        final ArtifactInputStream is = groupRepository.getParallelLookupFanOut() > 1 && members.size() > 1 ?
+                                       lookup.resolve() :
+                                       lookup.resolveSequentially();
+        if (is != null)
+        {
+            return is;
+        }
+
+        // Only remember the miss, if all of the members could actually be checked.
+        if (!lookup.isFailed())
+        {
+            getNegativeLookupCache().put(groupRepository, artifactPath);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the members of the group repository, which are in service and not denied the path by the routing rules
+     */
+    private List<Repository> getMembers(Repository groupRepository,
+                                        String artifactPath)
+    {
+        List<Repository> members = new ArrayList<>();
         for (String storageAndRepositoryId : groupRepository.getGroupRepositories())
         {
-            String sId = getConfigurationManager().getStorageId(storage, storageAndRepositoryId);
+            String sId = getConfigurationManager().getStorageId(groupRepository.getStorage(), storageAndRepositoryId);
             String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
 
             Repository r = getConfiguration().getStorage(sId).getRepository(rId);
 
-            if (r.isInService() &&
-                !repositoryRejects(r.getId(), artifactPath, denyRules) &&
-                !repositoryRejects(r.getId(), artifactPath, wildcardDenyRules))
+            // Handle:
+            // - Repository deny
+            // - Repository wildcard repository deny
+            if (r.isInService() && !repositoryRejects(groupRepository.getId(), r.getId(), artifactPath))
             {
-                ArtifactInputStream is;
-                try
+                members.add(r);
+            }
+        }
+
+        return members;
+    }
+
+    /**
+     * @return <code>true</code>, if the path is that of a metadata file which is merged across the members of the
+     *         group repository (or that of one of its checksums), in which case it isn't stored by any of them
+     */
+    public boolean isMergedMetadataPath(Repository groupRepository,
+                                        String artifactPath)
+    {
+        LayoutProvider layoutProvider = getLayoutProvider(groupRepository, getLayoutProviderRegistry());
+
+        return layoutProvider instanceof GroupMetadataMerger &&
+               getMergedMetadataPath(groupRepository, layoutProvider, artifactPath) != null;
+    }
+
+    /**
+     * Looks the path up in the members of the group repository in the same order as {@link #getInputStream}, but
+     * only checks what the members have stored (or cached) locally, without ever reaching out to the remote
+     * repositories of proxy members, or opening the files.
+     *
+     * @return the path of the member's copy, or <code>null</code>, if none of the members has it stored
+     */
+    public RepositoryPath resolveStoredPath(Repository groupRepository,
+                                            String artifactPath)
+            throws IOException
+    {
+        String resolvedMember = getGroupResolutionCache().get(groupRepository, artifactPath);
+
+        List<String> candidates = new ArrayList<>();
+        if (resolvedMember != null)
+        {
+            candidates.add(resolvedMember);
+        }
+        candidates.addAll(getRoutingRulesMatcher().getAcceptedRepositories(getRoutingRules(),
+                                                                           groupRepository.getId(),
+                                                                           artifactPath));
+        candidates.addAll(getRoutingRulesMatcher().getWildcardAcceptedRepositories(getRoutingRules(), artifactPath));
+
+        for (String storageAndRepositoryId : candidates)
+        {
+            String sId = getConfigurationManager().getStorageId(groupRepository.getStorage(), storageAndRepositoryId);
+            String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
+
+            Storage storage = getConfiguration().getStorage(sId);
+            Repository member = storage != null ? storage.getRepository(rId) : null;
+            if (member != null && member.isInService())
+            {
+                RepositoryPath path = resolveStoredPathInMember(member, artifactPath);
+                if (path != null)
                 {
-                    is = resolveArtifact(sId, r.getId(), artifactPath);
+                    return path;
                 }
-                catch (IOException e)
+            }
+        }
+
+        for (Repository member : getMembers(groupRepository, artifactPath))
+        {
+            RepositoryPath path = resolveStoredPathInMember(member, artifactPath);
+            if (path != null)
+            {
+                return path;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return <code>true</code>, if any of the members of the group repository (or of its nested groups) which are in
+     *         service is a proxy repository, in which case the path may be available, even if it is not stored locally
+     */
+    public boolean hasProxyMembers(Repository groupRepository)
+    {
+        for (String storageAndRepositoryId : groupRepository.getGroupRepositories())
+        {
+            String sId = getConfigurationManager().getStorageId(groupRepository.getStorage(), storageAndRepositoryId);
+            String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
+
+            Storage storage = getConfiguration().getStorage(sId);
+            Repository member = storage != null ? storage.getRepository(rId) : null;
+            if (member == null || !member.isInService())
+            {
+                continue;
+            }
+
+            if (member.isProxyRepository() || member.isGroupRepository() && hasProxyMembers(member))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return <code>true</code>, if the member is a proxy repository (or a group containing one), whose remote
+     *         repository is blocked, in which case a path missing in it may still be available remotely
+     */
+    private boolean isBlocked(Repository member)
+    {
+        if (member.isProxyRepository())
+        {
+            return !remoteRepositoryCircuitBreaker.allowRequest(member);
+        }
+
+        if (!member.isGroupRepository())
+        {
+            return false;
+        }
+
+        for (String storageAndRepositoryId : member.getGroupRepositories())
+        {
+            String sId = getConfigurationManager().getStorageId(member.getStorage(), storageAndRepositoryId);
+            String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
+
+            Storage storage = getConfiguration().getStorage(sId);
+            Repository nestedMember = storage != null ? storage.getRepository(rId) : null;
+            if (nestedMember != null && nestedMember.isInService() && isBlocked(nestedMember))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private RepositoryPath resolveStoredPathInMember(Repository member,
+                                                     String artifactPath)
+            throws IOException
+    {
+        if (member.isGroupRepository())
+        {
+            return resolveStoredPath(member, artifactPath);
+        }
+
+        LayoutProvider layoutProvider = getLayoutProvider(member, getLayoutProviderRegistry());
+        RepositoryPath path = layoutProvider.resolve(member).resolve(artifactPath);
+
+        return Files.isRegularFile(path.getTarget()) ? path : null;
+    }
+
+    /**
+     * @return the path of the metadata file, if the path is that of a metadata file which is merged across the
+     *         members (or that of one of its checksums), or <code>null</code> otherwise
+     */
+    private String getMergedMetadataPath(Repository groupRepository,
+                                         LayoutProvider layoutProvider,
+                                         String artifactPath)
+    {
+        GroupMetadataMerger merger = (GroupMetadataMerger) layoutProvider;
+        if (merger.isMergedInGroup(artifactPath))
+        {
+            return artifactPath;
+        }
+
+        RepositoryFileSystem fileSystem = layoutProvider.getRepositoryFileSystem(groupRepository);
+        for (String checksumExtension : fileSystem.getChecksumExtensions().values())
+        {
+            String suffix = "." + checksumExtension;
+            if (artifactPath.endsWith(suffix) &&
+                merger.isMergedInGroup(artifactPath.substring(0, artifactPath.length() - suffix.length())))
+            {
+                return artifactPath.substring(0, artifactPath.length() - suffix.length());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Serves a metadata file merged from the copies of all the members (or one of its checksums, which have to
+     * match the merged contents, rather than those of any of the members' copies).
+     */
+    private ArtifactInputStream getMergedMetadataInputStream(Repository groupRepository,
+                                                             LayoutProvider layoutProvider,
+                                                             String metadataPath,
+                                                             String artifactPath)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        byte[] contents = getMergedMetadata(groupRepository, (GroupMetadataMerger) layoutProvider, metadataPath);
+        if (contents == null)
+        {
+            return null;
+        }
+
+        Map<String, String> checksums = new LinkedHashMap<>();
+        for (String digestAlgorithm : (Set<String>) layoutProvider.getDigestAlgorithmSet())
+        {
+            checksums.put(digestAlgorithm,
+                          MessageDigestUtils.convertToHexadecimalString(MessageDigest.getInstance(digestAlgorithm)
+                                                                                     .digest(contents)));
+        }
+
+        if (!metadataPath.equals(artifactPath))
+        {
+            RepositoryFileSystem fileSystem = layoutProvider.getRepositoryFileSystem(groupRepository);
+            for (Map.Entry<String, String> checksum : checksums.entrySet())
+            {
+                if (artifactPath.endsWith("." + fileSystem.getChecksumExtension(checksum.getKey())))
                 {
-                    continue;
+                    return newInputStream(layoutProvider,
+                                          artifactPath,
+                                          checksum.getValue().getBytes(StandardCharsets.UTF_8),
+                                          Collections.emptyMap());
                 }
+            }
+
+            return null;
+        }
+
+        return newInputStream(layoutProvider, artifactPath, contents, checksums);
+    }
+
+    private ArtifactInputStream newInputStream(LayoutProvider layoutProvider,
+                                               String artifactPath,
+                                               byte[] contents,
+                                               Map<String, String> checksums)
+            throws NoSuchAlgorithmException
+    {
+        ArtifactInputStream is = new ArtifactInputStream(layoutProvider.getArtifactCoordinates(artifactPath),
+                                                         new ByteArrayInputStream(contents),
+                                                         Collections.emptySet())
+        {
+
+        };
+        is.getHexDigests().putAll(checksums);
+
+        return is;
+    }
+
+    /**
+     * Returns the metadata file merged from the copies of all the members, which have it (taking the routing rules
+     * into account, see {@link #getMergedMetadataMembers(Repository, String)}). The merged file is kept in the group
+     * metadata cache for as long as none of the members' copies change.
+     */
+    private byte[] getMergedMetadata(Repository groupRepository,
+                                     GroupMetadataMerger merger,
+                                     String metadataPath)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        List<Repository> members = getMergedMetadataMembers(groupRepository, metadataPath);
+
+        byte[] contents = groupMetadataCache.get(groupRepository, metadataPath, getStamp(members, metadataPath));
+        if (contents != null)
+        {
+            return contents;
+        }
+
+        List<byte[]> copies = new ArrayList<>();
+        boolean failed = false;
+        for (Repository member : members)
+        {
+            try (ArtifactInputStream is = getInputStream(member, metadataPath))
+            {
                 if (is != null)
                 {
-                    return is;
+                    copies.add(IOUtils.toByteArray(is));
                 }
             }
+            catch (FileNotFoundException | NoSuchFileException e)
+            {
+                // This member doesn't have a copy.
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to read " + metadataPath + " from " +
+                             GroupResolutionCache.getRepositoryKey(member) + ".", e);
+
+                failed = true;
+            }
         }
 
-        return null;
+        if (copies.isEmpty())
+        {
+            return null;
+        }
+
+        contents = copies.size() > 1 ? merger.merge(metadataPath, copies) : copies.get(0);
+
+        // Only keep the result, if all of the members could actually be read. The stamp is taken after reading the
+        // copies, as the proxy repositories may have just downloaded theirs.
+        if (!failed)
+        {
+            groupMetadataCache.put(groupRepository, metadataPath, getStamp(members, metadataPath), contents);
+        }
+
+        return contents;
     }
 
-    public boolean repositoryRejects(String repositoryId, String artifactPath, RuleSet denyRules)
+    /**
+     * @return the repositories, whose copies of the metadata file are merged: the ones the accept rules route the path
+     *         to, if there are any, or all of the members otherwise (in both cases, without the ones which are out of
+     *         service, or denied the path by the routing rules)
+     */
+    private List<Repository> getMergedMetadataMembers(Repository groupRepository,
+                                                      String metadataPath)
     {
-        if (denyRules != null && !denyRules.getRoutingRules().isEmpty())
+        Set<String> acceptedRepositories = new LinkedHashSet<>();
+        acceptedRepositories.addAll(getRoutingRulesMatcher().getAcceptedRepositories(getRoutingRules(),
+                                                                                     groupRepository.getId(),
+                                                                                     metadataPath));
+        acceptedRepositories.addAll(getRoutingRulesMatcher().getWildcardAcceptedRepositories(getRoutingRules(),
+                                                                                             metadataPath));
+
+        List<Repository> members = new ArrayList<>();
+        for (String storageAndRepositoryId : acceptedRepositories)
         {
-            for (RoutingRule rule : denyRules.getRoutingRules())
+            String sId = getConfigurationManager().getStorageId(groupRepository.getStorage(), storageAndRepositoryId);
+            String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
+
+            Storage storage = getConfiguration().getStorage(sId);
+            Repository member = storage != null ? storage.getRepository(rId) : null;
+            if (member != null &&
+                member.isInService() &&
+                !repositoryRejects(groupRepository.getId(), member.getId(), metadataPath))
             {
-                if (rule.getRepositories().contains(repositoryId) && artifactPath.matches(rule.getPattern()))
+                members.add(member);
+            }
+        }
+
+        return !members.isEmpty() ? members : getMembers(groupRepository, metadataPath);
+    }
+
+    /**
+     * Describes the members' copies of a file by their size and last modified time (and those of the nested groups by
+     * the copies of their own members), so that a change to any of them can be told.
+     */
+    private String getStamp(List<Repository> members,
+                            String path)
+            throws IOException,
+                   ProviderImplementationException
+    {
+        StringBuilder stamp = new StringBuilder();
+        for (Repository member : members)
+        {
+            stamp.append(GroupResolutionCache.getRepositoryKey(member)).append('=');
+
+            if (member.isGroupRepository())
+            {
+                stamp.append('[').append(getStamp(getMergedMetadataMembers(member, path), path)).append(']');
+            }
+            else
+            {
+                LayoutProvider layoutProvider = getLayoutProvider(member, getLayoutProviderRegistry());
+                RepositoryPath memberPath = layoutProvider.resolve(member).resolve(path);
+
+                try
+                {
+                    BasicFileAttributes attributes = Files.readAttributes(memberPath.getTarget(),
+                                                                          BasicFileAttributes.class);
+
+                    stamp.append(attributes.size()).append('@').append(attributes.lastModifiedTime().toMillis());
+                }
+                catch (NoSuchFileException e)
                 {
-                    return true;
+                    stamp.append('-');
                 }
             }
+
+            stamp.append(';');
         }
 
-        return false;
+        return stamp.toString();
+    }
+
+    public boolean repositoryRejects(String groupRepositoryId,
+                                     String repositoryId,
+                                     String artifactPath)
+    {
+        return getRoutingRulesMatcher().rejects(getRoutingRules(), groupRepositoryId, repositoryId, artifactPath);
     }
 
-    private ArtifactInputStream getInputStreamFromWildcardRepositoryAcceptRules(String artifactPath, Storage storage)
+    /**
+     * Returns the artifact from the member it was last resolved from, if it is still available there.
+     * Otherwise, the entry is dropped from the group resolution cache, so that the members are walked as usual.
+     */
+    private ArtifactInputStream getInputStreamFromResolvedMember(Repository groupRepository,
+                                                                 String artifactPath)
+            throws NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        String storageAndRepositoryId = getGroupResolutionCache().get(groupRepository, artifactPath);
+        if (storageAndRepositoryId == null)
+        {
+            return null;
+        }
+
+        String sId = getConfigurationManager().getStorageId(groupRepository.getStorage(), storageAndRepositoryId);
+        String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
+
+        Storage storage = getConfiguration().getStorage(sId);
+        Repository repository = storage != null ? storage.getRepository(rId) : null;
+
+        ArtifactInputStream is = null;
+        if (repository != null && repository.isInService())
+        {
+            try
+            {
+                is = getInputStream(repository, artifactPath);
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to resolve " + artifactPath + " from " + storageAndRepositoryId + ".", e);
+            }
+        }
+
+        if (is == null)
+        {
+            getGroupResolutionCache().remove(groupRepository, artifactPath);
+        }
+
+        return is;
+    }
+
+    private ArtifactInputStream getInputStreamFromWildcardRepositoryAcceptRules(Repository groupRepository,
+                                                                                String artifactPath)
             throws IOException,
                    NoSuchAlgorithmException,
                    ArtifactTransportException,
                    ProviderImplementationException
     {
-        RuleSet globalAcceptRules = getRoutingRules().getWildcardAcceptedRules();
+        List<String> repositories = getRoutingRulesMatcher().getWildcardAcceptedRepositories(getRoutingRules(),
+                                                                                             artifactPath);
 
-        return getArtifactInputStreamViaAcceptedRules(artifactPath, storage, globalAcceptRules);
+        return getArtifactInputStreamViaAcceptedRules(groupRepository, artifactPath, repositories);
     }
 
-    private ArtifactInputStream getInputStreamFromRepositoryAcceptRules(String repositoryId,
-                                                                        String artifactPath,
-                                                                        Storage storage)
+    private ArtifactInputStream getInputStreamFromRepositoryAcceptRules(Repository groupRepository,
+                                                                        String artifactPath)
             throws IOException,
                    NoSuchAlgorithmException,
                    ArtifactTransportException,
                    ProviderImplementationException
     {
-        RuleSet acceptRules = getRoutingRules().getAcceptRules(repositoryId);
+        List<String> repositories = getRoutingRulesMatcher().getAcceptedRepositories(getRoutingRules(),
+                                                                                     groupRepository.getId(),
+                                                                                     artifactPath);
 
-        return getArtifactInputStreamViaAcceptedRules(artifactPath, storage, acceptRules);
+        return getArtifactInputStreamViaAcceptedRules(groupRepository, artifactPath, repositories);
     }
 
-    private ArtifactInputStream getArtifactInputStreamViaAcceptedRules(String artifactPath,
-                                                                       Storage storage,
-                                                                       RuleSet acceptRules)
+    private ArtifactInputStream getArtifactInputStreamViaAcceptedRules(Repository groupRepository,
+                                                                       String artifactPath,
+                                                                       List<String> acceptedRepositories)
             throws ProviderImplementationException,
                    NoSuchAlgorithmException,
                    IOException,
                    ArtifactTransportException
     {
-        if (acceptRules != null && acceptRules.getRoutingRules() != null &&
-            !acceptRules.getRoutingRules().isEmpty())
+        for (String storageAndRepositoryId : acceptedRepositories)
         {
-            final List<RoutingRule> routingRules = acceptRules.getRoutingRules();
-            for (RoutingRule rule : routingRules)
-            {
-                if (artifactPath.matches(rule.getPattern()))
-                {
-                    for (String rId : rule.getRepositories())
-                    {
-                        String sId = getConfigurationManager().getStorageId(storage, rId);
-                        rId = getConfigurationManager().getRepositoryId(rId);
+            String sId = getConfigurationManager().getStorageId(groupRepository.getStorage(), storageAndRepositoryId);
+            String rId = getConfigurationManager().getRepositoryId(storageAndRepositoryId);
 
-                        Repository repository = getConfiguration().getStorage(sId).getRepository(rId);
-                        LayoutProvider layoutProvider = getLayoutProvider(repository, getLayoutProviderRegistry());
+            Repository repository = getConfiguration().getStorage(sId).getRepository(rId);
+            LayoutProvider layoutProvider = getLayoutProvider(repository, getLayoutProviderRegistry());
 
-                        if (repository.isInService() && layoutProvider.containsPath(repository, artifactPath))
-                        {
-                            return resolveArtifact(sId, repository.getId(), artifactPath);
-                        }
-                    }
-                }
+            if (repository.isInService() && layoutProvider.containsPath(repository, artifactPath))
+            {
+                return resolveArtifact(groupRepository, sId, repository.getId(), artifactPath);
             }
         }
 
@@ -198,7 +668,10 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
     /**
      * Returns the artifact associated to artifactPath if repository type isn't GROUP or
      * returns the product of calling getInputStream recursively otherwise.
+     * <p>
+     * The (non-group) member which the artifact was resolved from is recorded in the group resolution cache.
      *
+     * @param groupRepository The group repository which is being resolved
      * @param storageId    The storage id
      * @param repositoryId The repository
      * @param artifactPath The path to the artifact
@@ -207,7 +680,8 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
      * @throws IOException
      * @throws ArtifactTransportException
      */
-    private ArtifactInputStream resolveArtifact(String storageId,
+    private ArtifactInputStream resolveArtifact(Repository groupRepository,
+                                                String storageId,
                                                 String repositoryId,
                                                 String artifactPath)
             throws NoSuchAlgorithmException,
@@ -215,29 +689,38 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
                    ArtifactTransportException,
                    ProviderImplementationException
     {
-        ArtifactInputStream is;
         Repository repository = getConfiguration().getStorage(storageId).getRepository(repositoryId);
 
+        ArtifactInputStream is = getInputStream(repository, artifactPath);
+        if (is != null)
+        {
+            recordResolvedMember(groupRepository, repository, artifactPath);
+        }
+
+        return is;
+    }
+
+    private void recordResolvedMember(Repository groupRepository,
+                                      Repository repository,
+                                      String artifactPath)
+    {
+        logger.debug("Located artifact: [" + GroupResolutionCache.getRepositoryKey(repository) + "]");
+
         if (!getAlias().equals(repository.getType()))
         {
-            is = getInputStream(repository, artifactPath);
-            if (is != null)
-            {
-                logger.debug("Located artifact: [" + storageId + ":" + repository.getId() + "]");
-                return is;
-            }
+            getGroupResolutionCache().put(groupRepository,
+                                          artifactPath,
+                                          GroupResolutionCache.getRepositoryKey(repository));
         }
         else
         {
-            is = getInputStream(storageId, repository.getId(), artifactPath);
-            if (is != null)
+            // The nested group has just recorded the member it resolved the artifact from.
+            String member = getGroupResolutionCache().get(repository, artifactPath);
+            if (member != null)
             {
-                logger.debug("Located artifact: [" + storageId + ":" + repository.getId() + "]");
-                return is;
+                getGroupResolutionCache().put(groupRepository, artifactPath, member);
             }
         }
-
-        return null;
     }
 
     private ArtifactInputStream getInputStream(Repository repository, String artifactPath)
@@ -267,9 +750,262 @@ public class GroupRepositoryProvider extends AbstractRepositoryProvider
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Looks a path up in the members of a group repository, either one at a time, in order, or by querying up to
+     * the group's parallel-lookup-fan-out members concurrently. In both cases the path is served from the member
+     * with the highest priority which contains it. A member is only waited for, once all the members before it
+     * have turned out not to contain the path, so a slow member only delays the requests it is relevant for.
+     */
+    private class MemberLookup
+    {
+
+        private final Repository groupRepository;
+
+        private final String artifactPath;
+
+        private final List<Repository> members;
+
+        private final List<Future<ArtifactInputStream>> lookups = new ArrayList<>();
+
+        /**
+         * The streams opened by the concurrent lookups, which need to be closed, if they lose.
+         */
+        private final ArtifactInputStream[] results;
+
+        private boolean resolved;
+
+        private volatile boolean failed;
+
+
+        MemberLookup(Repository groupRepository,
+                       String artifactPath,
+                       List<Repository> members)
+        {
+            this.groupRepository = groupRepository;
+            this.artifactPath = artifactPath;
+            this.members = members;
+            this.results = new ArtifactInputStream[members.size()];
+        }
+
+        ArtifactInputStream resolveSequentially()
+                throws NoSuchAlgorithmException,
+                       ArtifactTransportException,
+                       ProviderImplementationException
+        {
+            for (Repository member : members)
+            {
+                ArtifactInputStream is = lookup(member);
+                if (is != null)
+                {
+                    recordResolvedMember(groupRepository, member, artifactPath);
+
+                    return is;
+                }
+            }
+
+            return null;
+        }
+
+        ArtifactInputStream resolve()
+                throws IOException,
+                       NoSuchAlgorithmException,
+                       ArtifactTransportException,
+                       ProviderImplementationException
+        {
+            int fanOut = groupRepository.getParallelLookupFanOut();
+            int winner = -1;
+
+            try
+            {
+                for (int i = 0; i < members.size(); i++)
+                {
+                    // Keep up to fanOut lookups in flight, starting with the members of the highest priority. The
+                    // members which may have to reach out to a remote repository are only looked up once all of the
+                    // members before them have missed, so that the downloads (which are shared with the other
+                    // requests for the same path) are never started by lookups which are going to lose.
+                    while (lookups.size() < members.size() &&
+                           lookups.size() < i + fanOut &&
+                           (lookups.size() == i || isLocal(members.get(lookups.size()))))
+                    {
+                        final int index = lookups.size();
+                        lookups.add(groupLookupExecutor.submit(() -> lookupConcurrently(index)));
+                    }
+
+                    ArtifactInputStream is = await(i);
+                    if (is != null)
+                    {
+                        winner = i;
+
+                        recordResolvedMember(groupRepository, members.get(i), artifactPath);
+
+                        return is;
+                    }
+                }
+
+                return null;
+            }
+            finally
+            {
+                cancel(winner);
+            }
+        }
+
+        boolean isFailed()
+        {
+            return failed;
+        }
+
+        /**
+         * @return <code>true</code>, if the member only has to check what it has stored (or cached) locally, which is
+         *         quick enough to be done ahead of the members of a higher priority
+         */
+        private boolean isLocal(Repository member)
+        {
+            return !member.isProxyRepository() && !(member.isGroupRepository() && hasProxyMembers(member));
+        }
+
+        private ArtifactInputStream lookup(Repository member)
+                throws NoSuchAlgorithmException,
+                       ArtifactTransportException,
+                       ProviderImplementationException
+        {
+            try
+            {
+                ArtifactInputStream is = getInputStream(member, artifactPath);
+                if (is == null && isBlocked(member))
+                {
+                    // The member could not actually be checked, so the miss is not to be remembered.
+                    logger.debug("Could not look up " + artifactPath + " in " +
+                                 GroupResolutionCache.getRepositoryKey(member) +
+                                 ", as its remote repository is blocked.");
+
+                    failed = true;
+                }
+
+                return is;
+            }
+            catch (FileNotFoundException | NoSuchFileException e)
+            {
+                return null;
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to look up " + artifactPath + " in " +
+                             GroupResolutionCache.getRepositoryKey(member) + ".", e);
+
+                failed = true;
+
+                return null;
+            }
+        }
+
+        private ArtifactInputStream lookupConcurrently(int index)
+                throws NoSuchAlgorithmException,
+                       ArtifactTransportException,
+                       ProviderImplementationException
+        {
+            ArtifactInputStream is = lookup(members.get(index));
+
+            synchronized (this)
+            {
+                if (!resolved)
+                {
+                    results[index] = is;
+
+                    return is;
+                }
+            }
+
+            // Another member has already won.
+            ResourceCloser.close(is, logger);
+
+            return null;
+        }
+
+        private ArtifactInputStream await(int index)
+                throws IOException,
+                       NoSuchAlgorithmException,
+                       ArtifactTransportException,
+                       ProviderImplementationException
+        {
+            try
+            {
+                return lookups.get(index).get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while looking up " + artifactPath + "!");
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+                if (cause instanceof NoSuchAlgorithmException)
+                {
+                    throw (NoSuchAlgorithmException) cause;
+                }
+                if (cause instanceof ArtifactTransportException)
+                {
+                    throw (ArtifactTransportException) cause;
+                }
+                if (cause instanceof ProviderImplementationException)
+                {
+                    throw (ProviderImplementationException) cause;
+                }
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException) cause;
+                }
+
+                throw new IOException(cause);
+            }
+        }
+
+        /**
+         * Cancels the lookups which have not been started yet and closes the streams of the ones
+         * which have completed, except for the winner's. The running lookups are only ever those of
+         * local members, which are not interrupted, as that would close the files they are reading;
+         * their streams are closed as soon as they complete.
+         */
+        private void cancel(int winner)
+        {
+            synchronized (this)
+            {
+                resolved = true;
+            }
+
+            for (int i = 0; i < lookups.size(); i++)
+            {
+                if (i != winner)
+                {
+                    lookups.get(i).cancel(false);
+
+                    ResourceCloser.close(results[i], logger);
+                }
+            }
+        }
+
+    }
+
     public RoutingRules getRoutingRules()
     {
         return getConfiguration().getRoutingRules();
     }
 
+    public GroupResolutionCache getGroupResolutionCache()
+    {
+        return groupResolutionCache;
+    }
+
+    public GroupMetadataCache getGroupMetadataCache()
+    {
+        return groupMetadataCache;
+    }
+
+    public RoutingRulesMatcher getRoutingRulesMatcher()
+    {
+        return routingRulesMatcher;
+    }
+
 }
@@ -0,0 +1,21 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.storage.repository.Repository;
+
+/**
+ * Gets notified by the {@link ProxyRepositoryProvider} whenever an artifact has been downloaded from a remote
+ * repository into the local cache.
+ */
+public interface ProxyRepositoryCacheListener
+{
+
+    /**
+     * Invoked by the thread which performed the download, so implementations should return quickly.
+     *
+     * @param repository the proxy repository
+     * @param path       the path of the artifact which has been cached
+     */
+    void artifactCached(Repository repository,
+                        String path);
+
+}
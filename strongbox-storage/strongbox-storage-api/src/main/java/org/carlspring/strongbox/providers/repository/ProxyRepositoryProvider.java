@@ -2,27 +2,43 @@ package org.carlspring.strongbox.providers.repository;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.nio.file.Files;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.ws.rs.core.Response;
 
 import org.carlspring.commons.io.MultipleDigestInputStream;
+import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.client.ArtifactResolver;
 import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
+import org.carlspring.strongbox.io.ByteRangeInputStream;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
+import org.carlspring.strongbox.providers.io.CacheFillInputStream;
+import org.carlspring.strongbox.providers.io.RepositoryFileAttributes;
 import org.carlspring.strongbox.providers.io.RepositoryFileSystemProvider;
 import org.carlspring.strongbox.providers.io.RepositoryPath;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
-import org.carlspring.strongbox.service.ProxyRepositoryConnectionPoolConfigurationService;
 import org.carlspring.strongbox.storage.Storage;
-import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.checksum.RemoteChecksumValidator;
 import org.carlspring.strongbox.storage.repository.Repository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,11 +59,31 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
     private RepositoryProviderRegistry repositoryProviderRegistry;
 
     @Inject
-    private ProxyRepositoryConnectionPoolConfigurationService proxyRepositoryConnectionPoolConfigurationService;
+    private ArtifactResolverRegistry artifactResolverRegistry;
+
+    @Inject
+    private RemoteChecksumValidator remoteChecksumValidator;
+
+    @Inject
+    private RemoteRepositoryCircuitBreaker remoteRepositoryCircuitBreaker;
+
+    @Inject
+    @Named("proxyCacheFillExecutor")
+    private ExecutorService proxyCacheFillExecutor;
 
     @Inject
     private LayoutProviderRegistry layoutProviderRegistry;
 
+    /**
+     * The remote downloads which are currently in progress.
+     * <p>
+     * K: storageId:repositoryId:path V: the download
+     */
+    private final ConcurrentMap<String, RemoteFetch> remoteFetches = new ConcurrentHashMap<>();
+
+    private final List<ProxyRepositoryCacheListener> cacheListeners = new CopyOnWriteArrayList<>();
+
+
     @PostConstruct
     @Override
     public void register()
@@ -64,6 +100,16 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
         return ALIAS;
     }
 
+    public void addCacheListener(ProxyRepositoryCacheListener listener)
+    {
+        cacheListeners.add(listener);
+    }
+
+    public void removeCacheListener(ProxyRepositoryCacheListener listener)
+    {
+        cacheListeners.remove(listener);
+    }
+
     @Override
     public ArtifactInputStream getInputStream(String storageId,
                                               String repositoryId,
@@ -82,9 +128,6 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
         RepositoryPath reposytoryPath = layoutProvider.resolve(repository);
         RepositoryPath artifactPath = reposytoryPath.resolve(path);
 
-        RepositoryFileSystemProvider fileSystemProvider = (RepositoryFileSystemProvider) artifactPath.getFileSystem()
-                                                                                                     .provider();
-
         logger.debug(" -> Checking for " + artifactPath + "...");
 
         if (layoutProvider.containsPath(repository, path))
@@ -99,39 +142,363 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
         {
             logger.debug("The artifact was not found in the local cache.");
 
-            RemoteRepository remoteRepository = repository.getRemoteRepository();
+            if (getNegativeLookupCache().contains(repository, path))
+            {
+                logger.debug("The artifact is known to be missing in the remote repository.");
 
-            ArtifactResolver client = new ArtifactResolver(proxyRepositoryConnectionPoolConfigurationService.getClient());
-            client.setRepositoryBaseUrl(remoteRepository.getUrl());
-            client.setUsername(remoteRepository.getUsername());
-            client.setPassword(remoteRepository.getPassword());
+                return null;
+            }
 
-            Response response = client.getResourceWithResponse(path);
-            if (response.getStatus() != 200 || response.getEntity() == null)
+            RemoteRepositoryCircuitBreaker.Permit permit = remoteRepositoryCircuitBreaker.acquirePermit(repository);
+            if (permit == null)
             {
+                logger.debug("The remote repository is blocked, only serving the locally cached artifacts.");
+
                 return null;
             }
 
+            // If this is the trial request of a remote repository which is being unblocked, but it never reaches the
+            // remote repository (because it joins an in-flight download, or the artifact has been cached in the
+            // meantime), closing the permit lets another request through.
+            try
+            {
+                RemoteFetch remoteFetch = startRemoteFetch(repository, path);
+                if (remoteFetch.isStreamable())
+                {
+                    // Serve the artifact while it is being downloaded
+                    return remoteFetch.newInputStream();
+                }
+
+                if (!awaitRemoteFetch(remoteFetch.getResult()))
+                {
+                    return null;
+                }
+            }
+            finally
+            {
+                permit.close();
+            }
+
+            // Serve the downloaded artifact
+            RepositoryPath repositoryPath = layoutProvider.resolve(repository).resolve(path);
+            return (ArtifactInputStream) Files.newInputStream(repositoryPath);
+        }
+    }
+
+    /**
+     * Makes sure that concurrent cache misses for the same path result in a single remote transfer: the first caller
+     * starts the download, while all the others join it.
+     * <p>
+     * The download itself is performed in the background, so that the requests joining it can be served from the
+     * temporary file, while it is still being written to.
+     */
+    private RemoteFetch startRemoteFetch(Repository repository,
+                                         String path)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        String key = repository.getStorage().getId() + ":" + repository.getId() + ":" + path;
+
+        RemoteFetch remoteFetch = new RemoteFetch();
+        RemoteFetch inFlightRemoteFetch = remoteFetches.putIfAbsent(key, remoteFetch);
+        if (inFlightRemoteFetch != null)
+        {
+            logger.debug("Joining the in-flight download of " + key + "...");
+
+            return inFlightRemoteFetch;
+        }
+
+        remoteFetch.getResult().whenComplete((result, e) -> remoteFetches.remove(key, remoteFetch));
+
+        try
+        {
+            doFetchRemoteArtifact(repository, path, remoteFetch);
+
+            return remoteFetch;
+        }
+        catch (Exception e)
+        {
+            remoteFetch.getResult().completeExceptionally(e);
+
+            throw e;
+        }
+    }
+
+    private boolean awaitRemoteFetch(CompletableFuture<Boolean> remoteFetch)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        try
+        {
+            return remoteFetch.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof NoSuchAlgorithmException)
+            {
+                throw (NoSuchAlgorithmException) cause;
+            }
+            if (cause instanceof ArtifactTransportException)
+            {
+                throw (ArtifactTransportException) cause;
+            }
+            if (cause instanceof ProviderImplementationException)
+            {
+                throw (ProviderImplementationException) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    private void doFetchRemoteArtifact(Repository repository,
+                                       String path,
+                                       RemoteFetch remoteFetch)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        LayoutProvider layoutProvider = layoutProviderRegistry.getProvider(repository.getLayout());
+
+        // Another request may have completed the download, while we were waiting to become the one to perform it.
+        if (layoutProvider.containsPath(repository, path))
+        {
+            remoteFetch.getResult().complete(true);
+
+            return;
+        }
+
+        RepositoryPath artifactPath = layoutProvider.resolve(repository).resolve(path);
+        RepositoryFileSystemProvider fileSystemProvider = (RepositoryFileSystemProvider) artifactPath.getFileSystem()
+                                                                                                     .provider();
+
+        // The lease keeps the resolver open, until the artifact has been downloaded.
+        ArtifactResolverRegistry.Lease lease = artifactResolverRegistry.acquireArtifactResolver(repository);
+        boolean cacheFillStarted = false;
+        try
+        {
+            ArtifactResolver client = lease.getArtifactResolver();
+
+            Response response;
+            try
+            {
+                response = client.getResourceWithResponse(path);
+            }
+            catch (Exception e)
+            {
+                // Connection failures and timeouts
+                remoteRepositoryCircuitBreaker.recordFailure(repository, e.toString());
+
+                throw e;
+            }
+
+            if (response.getStatus() >= 500)
+            {
+                response.close();
+
+                remoteRepositoryCircuitBreaker.recordFailure(repository, "HTTP status " + response.getStatus());
+
+                remoteFetch.getResult().complete(false);
+
+                return;
+            }
+
+            // The remote host has responded, so it is healthy, even if it does not have the artifact.
+            remoteRepositoryCircuitBreaker.recordSuccess(repository);
+
+            if (response.getStatus() == Response.Status.NOT_FOUND.getStatusCode())
+            {
+                // Return the connection to the pool.
+                response.close();
+
+                // Remember the miss, so that the remote host will not be asked for this path again for a while.
+                getNegativeLookupCache().put(repository, path);
+
+                remoteFetch.getResult().complete(false);
+
+                return;
+            }
+
+            if (response.getStatus() != 200 || response.getEntity() == null)
+            {
+                response.close();
+
+                remoteFetch.getResult().complete(false);
+
+                return;
+            }
+
             InputStream is = response.readEntity(InputStream.class);
             if (is == null)
             {
-                return null;
+                response.close();
+
+                remoteFetch.getResult().complete(false);
+
+                return;
             }
 
             RepositoryPath tempArtifact = fileSystemProvider.getTempPath(artifactPath);
-            try (InputStream remoteIs = new MultipleDigestInputStream(is);
-                 // Wrap the InputStream, so we could have checksums to compare
-                 OutputStream os = Files.newOutputStream(tempArtifact))
+
+            // Make sure nothing is served from the leftovers of a previously failed download.
+            Files.deleteIfExists(tempArtifact.getTarget());
+
+            long length = response.getLength();
+
+            remoteFetch.setArtifactPath(artifactPath);
+            remoteFetch.setTempArtifact(tempArtifact);
+            remoteFetch.setLength(length);
+
+            proxyCacheFillExecutor.execute(() -> fillCache(repository,
+                                                           path,
+                                                           client,
+                                                           layoutProvider,
+                                                           fileSystemProvider,
+                                                           artifactPath,
+                                                           tempArtifact,
+                                                           is,
+                                                           length,
+                                                           remoteFetch,
+                                                           lease));
+
+            cacheFillStarted = true;
+        }
+        finally
+        {
+            if (!cacheFillStarted)
+            {
+                lease.close();
+            }
+        }
+    }
+
+    private void fillCache(Repository repository,
+                           String path,
+                           ArtifactResolver client,
+                           LayoutProvider layoutProvider,
+                           RepositoryFileSystemProvider fileSystemProvider,
+                           RepositoryPath artifactPath,
+                           RepositoryPath tempArtifact,
+                           InputStream is,
+                           long length,
+                           RemoteFetch remoteFetch,
+                           ArtifactResolverRegistry.Lease lease)
+    {
+        try
+        {
+            // Wrap the InputStream, so we could have checksums to compare
+            MultipleDigestInputStream remoteIs = new MultipleDigestInputStream(is);
+            try
             {
                 layoutProvider.getArtifactManagementService().store(tempArtifact, remoteIs);
+            }
+            finally
+            {
+                remoteIs.close();
+            }
+
+            // Never publish (or finish serving) a truncated transfer.
+            long size = Files.size(tempArtifact.getTarget());
+            if (length > 0 && size != length)
+            {
+                throw new IOException("Received " + size + " bytes of " + artifactPath +
+                                      ", instead of " + length + "!");
+            }
 
-                // TODO: Add a policy for validating the checksums of downloaded artifacts
-                // TODO: Validate the local checksum against the remote's checksums
-                fileSystemProvider.moveFromTemporaryDirectory(artifactPath);
-                
-                // Serve the downloaded artifact
-                RepositoryPath repositoryPath = layoutProvider.resolve(repository).resolve(path);
-                return (ArtifactInputStream) Files.newInputStream(repositoryPath);
+            // The checksums have been calculated while downloading, so there is no need to read the file again.
+            if (!fileSystemProvider.isChecksum(artifactPath))
+            {
+                Map<String, String> digests = new HashMap<>();
+                for (String algorithm : remoteIs.getDigests().keySet())
+                {
+                    digests.put(algorithm, remoteIs.getMessageDigestAsHexadecimalString(algorithm));
+                }
+
+                remoteChecksumValidator.validate(artifactPath, digests, client);
+            }
+
+            fileSystemProvider.moveFromTemporaryDirectory(artifactPath);
+
+            // Notify the listeners before the waiting requests, so that every completed download has been reported
+            // by the time they are served.
+            notifyCacheListeners(repository, path);
+
+            remoteFetch.getResult().complete(true);
+        }
+        catch (Exception e)
+        {
+            logger.error("Failed to download " + artifactPath + "!", e);
+
+            if (e instanceof SocketTimeoutException)
+            {
+                remoteRepositoryCircuitBreaker.recordFailure(repository, e.toString());
+            }
+
+            // Nothing of a failed download (for example: one which doesn't match the remote checksums) is cached.
+            discardTemporaryArtifact(tempArtifact);
+
+            remoteFetch.getResult().completeExceptionally(e);
+        }
+        finally
+        {
+            lease.close();
+        }
+    }
+
+    /**
+     * Removes a downloaded artifact and the checksum files produced while it was written from the temporary
+     * directory.
+     */
+    private void discardTemporaryArtifact(RepositoryPath tempArtifact)
+    {
+        List<RepositoryPath> paths = new ArrayList<>();
+        paths.add(tempArtifact);
+        for (String checksumExtension : tempArtifact.getFileSystem().getChecksumExtensions().values())
+        {
+            paths.add(tempArtifact.resolveSibling(tempArtifact.getFileName() + "." + checksumExtension));
+        }
+
+        for (RepositoryPath path : paths)
+        {
+            try
+            {
+                Files.deleteIfExists(path.getTarget());
+            }
+            catch (IOException e)
+            {
+                logger.warn("Failed to remove " + path + "!", e);
+            }
+        }
+    }
+
+    private void notifyCacheListeners(Repository repository,
+                                      String path)
+    {
+        for (ProxyRepositoryCacheListener listener : cacheListeners)
+        {
+            try
+            {
+                listener.artifactCached(repository, path);
+            }
+            catch (Exception e)
+            {
+                logger.warn("Failed to notify " + listener.getClass().getName() + " about " + path + "!", e);
             }
         }
     }
@@ -152,4 +519,82 @@ public class ProxyRepositoryProvider extends AbstractRepositoryProvider
         return (ArtifactOutputStream) Files.newOutputStream(repositoryPath);
     }
 
+    /**
+     * A download into the local cache. Once the download has started writing to the temporary file, and if
+     * the remote host has reported the length of the file, the artifact can be served while it is being downloaded.
+     */
+    private static class RemoteFetch
+    {
+
+        /**
+         * Completes with whether the artifact was stored in the local cache.
+         */
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private volatile RepositoryPath artifactPath;
+
+        private volatile RepositoryPath tempArtifact;
+
+        private volatile long length = -1;
+
+
+        CompletableFuture<Boolean> getResult()
+        {
+            return result;
+        }
+
+        boolean isStreamable()
+        {
+            return tempArtifact != null && length > 0 && !result.isCompletedExceptionally();
+        }
+
+        ArtifactInputStream newInputStream()
+                throws IOException
+        {
+            ByteRangeInputStream bris;
+            try
+            {
+                bris = new ByteRangeInputStream(new CacheFillInputStream(tempArtifact.getTarget(),
+                                                                         artifactPath.getTarget(),
+                                                                         result));
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IOException(e);
+            }
+            bris.setLength(length);
+
+            ArtifactCoordinates artifactCoordinates = (ArtifactCoordinates) Files.getAttribute(artifactPath,
+                                                                                               RepositoryFileAttributes.COORDINATES);
+
+            try
+            {
+                return new ArtifactInputStream(artifactCoordinates, bris, Collections.emptySet())
+                {
+
+                };
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        void setArtifactPath(RepositoryPath artifactPath)
+        {
+            this.artifactPath = artifactPath;
+        }
+
+        void setTempArtifact(RepositoryPath tempArtifact)
+        {
+            this.tempArtifact = tempArtifact;
+        }
+
+        void setLength(long length)
+        {
+            this.length = length;
+        }
+
+    }
+
 }
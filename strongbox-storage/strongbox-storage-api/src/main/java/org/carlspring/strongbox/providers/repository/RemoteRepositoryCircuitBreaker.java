@@ -0,0 +1,329 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.net.ConnectionChecker;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps track of the health of the remote repositories of proxy repositories which have auto-blocking enabled.
+ * <p>
+ * After a number of consecutive failures (connection errors, timeouts, or server errors) the remote repository is
+ * blocked: requests are no longer sent to it and only the content which is already in the local cache is served.
+ * While blocked, the remote host is probed in the background and, once it accepts connections again, a single
+ * request is let through. If that request succeeds, the remote repository is unblocked, otherwise it stays blocked.
+ * The trial request is given a {@link Permit}, which has to be closed once it is done, so that another request can
+ * be let through, if it never reached the remote repository.
+ */
+@Component("remoteRepositoryCircuitBreaker")
+public class RemoteRepositoryCircuitBreaker
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteRepositoryCircuitBreaker.class);
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    public static final long DEFAULT_PROBE_INTERVAL = 30000L;
+
+    public static final int DEFAULT_PROBE_TIMEOUT = 5000;
+
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * How often (in milliseconds) to check whether blocked remote repositories have become reachable again.
+     */
+    private volatile long probeInterval = DEFAULT_PROBE_INTERVAL;
+
+    /**
+     * The connect timeout (in milliseconds) of the probes.
+     */
+    private int probeTimeout = DEFAULT_PROBE_TIMEOUT;
+
+    /**
+     * K: storageId:repositoryId
+     * V: the status of the repository's remote
+     */
+    private final ConcurrentMap<String, RemoteRepositoryStatus> statuses = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService prober;
+
+
+    public RemoteRepositoryCircuitBreaker()
+    {
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("remote-repository-prober-");
+        threadFactory.setDaemon(true);
+
+        prober = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        scheduleProbe();
+    }
+
+    /**
+     * Schedules the next probe, reading the probe interval each time, so that changes to it take effect without a
+     * restart.
+     */
+    private void scheduleProbe()
+    {
+        if (prober.isShutdown())
+        {
+            return;
+        }
+
+        prober.schedule(() -> {
+            try
+            {
+                probe();
+            }
+            finally
+            {
+                scheduleProbe();
+            }
+        }, probeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        prober.shutdownNow();
+    }
+
+    /**
+     * @return <code>false</code>, if the remote repository is blocked and requests should not be sent to it
+     */
+    public boolean allowRequest(Repository repository)
+    {
+        if (!isAutoBlocking(repository))
+        {
+            return true;
+        }
+
+        RemoteRepositoryStatus status = statuses.get(getKey(repository));
+
+        return status == null || status.allowRequest();
+    }
+
+    /**
+     * @return <code>null</code>, if the remote repository is blocked and requests should not be sent to it,
+     *         otherwise a permit, which has to be closed once the request is done
+     */
+    public Permit acquirePermit(Repository repository)
+    {
+        if (!isAutoBlocking(repository))
+        {
+            return Permit.UNRESTRICTED;
+        }
+
+        RemoteRepositoryStatus status = statuses.get(getKey(repository));
+        if (status == null)
+        {
+            return Permit.UNRESTRICTED;
+        }
+
+        RemoteRepositoryStatus.State admission = status.admit();
+        if (admission == null)
+        {
+            return null;
+        }
+
+        return admission == RemoteRepositoryStatus.State.HALF_OPEN ? new Permit(status) : Permit.UNRESTRICTED;
+    }
+
+    public void recordSuccess(Repository repository)
+    {
+        if (!isAutoBlocking(repository))
+        {
+            return;
+        }
+
+        RemoteRepositoryStatus status = statuses.get(getKey(repository));
+        if (status != null && status.recordSuccess())
+        {
+            logger.info("The remote repository of " + getKey(repository) + " (" +
+                        repository.getRemoteRepository().getUrl() + ") has been unblocked.");
+        }
+    }
+
+    public void recordFailure(Repository repository,
+                              String reason)
+    {
+        if (!isAutoBlocking(repository))
+        {
+            return;
+        }
+
+        String key = getKey(repository);
+
+        RemoteRepositoryStatus status = statuses.computeIfAbsent(key,
+                                                                 k -> new RemoteRepositoryStatus(repository.getRemoteRepository()
+                                                                                                           .getUrl()));
+        if (status.recordFailure(reason, failureThreshold))
+        {
+            logger.warn("The remote repository of " + key + " (" + status.getUrl() + ") has been blocked after " +
+                        status.getConsecutiveFailures() + " consecutive failure(s): " + reason);
+        }
+    }
+
+    /**
+     * Unblocks the remote repository of the specified repository and forgets about its failures.
+     */
+    public void reset(String storageId,
+                      String repositoryId)
+    {
+        statuses.remove(getKey(storageId, repositoryId));
+    }
+
+    /**
+     * @return the status of the remote repository of the specified repository, or <code>null</code>, if it has
+     *         not failed so far
+     */
+    public RemoteRepositoryStatus getStatus(String storageId,
+                                            String repositoryId)
+    {
+        return statuses.get(getKey(storageId, repositoryId));
+    }
+
+    public Map<String, RemoteRepositoryStatus> getStatuses()
+    {
+        return statuses;
+    }
+
+    void probe()
+    {
+        long now = System.currentTimeMillis();
+
+        statuses.forEach((key, status) -> {
+            // A trial request which has been hanging for longer than the probe interval is given up on.
+            if (status.expireTrial(now - probeInterval))
+            {
+                logger.debug("The trial request to the remote repository of " + key + " (" + status.getUrl() +
+                             ") has not finished in time, probing it again.");
+            }
+
+            if (status.getState() != RemoteRepositoryStatus.State.OPEN)
+            {
+                return;
+            }
+
+            try
+            {
+                URI uri = URI.create(status.getUrl());
+                int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+
+                if (ConnectionChecker.checkServiceAvailability(uri.getHost(), port, probeTimeout))
+                {
+                    logger.debug("The remote repository of " + key + " (" + status.getUrl() + ") is reachable " +
+                                 "again, letting a request through.");
+
+                    status.halfOpen();
+                }
+            }
+            catch (Exception e)
+            {
+                logger.debug("Failed to probe the remote repository of " + key + " (" + status.getUrl() + ").", e);
+            }
+        });
+    }
+
+    private boolean isAutoBlocking(Repository repository)
+    {
+        RemoteRepository remoteRepository = repository.getRemoteRepository();
+
+        return remoteRepository != null && remoteRepository.isAutoBlocking();
+    }
+
+    private String getKey(Repository repository)
+    {
+        return getKey(repository.getStorage().getId(), repository.getId());
+    }
+
+    private String getKey(String storageId,
+                          String repositoryId)
+    {
+        return storageId + ":" + repositoryId;
+    }
+
+    public int getFailureThreshold()
+    {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold)
+    {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getProbeInterval()
+    {
+        return probeInterval;
+    }
+
+    public void setProbeInterval(long probeInterval)
+    {
+        this.probeInterval = probeInterval;
+    }
+
+    public int getProbeTimeout()
+    {
+        return probeTimeout;
+    }
+
+    public void setProbeTimeout(int probeTimeout)
+    {
+        this.probeTimeout = probeTimeout;
+    }
+
+    /**
+     * Allows a request to be sent to a remote repository. Closing the permit of the trial request of a remote
+     * repository which is being unblocked lets another request through, unless the trial request has already
+     * succeeded, or failed.
+     */
+    public static class Permit
+            implements AutoCloseable
+    {
+
+        static final Permit UNRESTRICTED = new Permit(null);
+
+        private final RemoteRepositoryStatus trialStatus;
+
+
+        Permit(RemoteRepositoryStatus trialStatus)
+        {
+            this.trialStatus = trialStatus;
+        }
+
+        public boolean isTrial()
+        {
+            return trialStatus != null;
+        }
+
+        @Override
+        public void close()
+        {
+            if (trialStatus != null)
+            {
+                trialStatus.releaseTrial();
+            }
+        }
+
+    }
+
+}
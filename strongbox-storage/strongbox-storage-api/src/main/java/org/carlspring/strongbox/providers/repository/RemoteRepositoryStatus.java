@@ -0,0 +1,220 @@
+package org.carlspring.strongbox.providers.repository;
+
+/**
+ * The health of a proxy repository's remote repository, as tracked by the {@link RemoteRepositoryCircuitBreaker}.
+ */
+public class RemoteRepositoryStatus
+{
+
+    public enum State
+    {
+        /**
+         * The remote repository is healthy and requests are sent to it.
+         */
+        CLOSED,
+
+        /**
+         * The remote repository is blocked and no requests are sent to it.
+         */
+        OPEN,
+
+        /**
+         * The remote repository has become reachable again and a single request is allowed through to check whether
+         * it can be unblocked.
+         */
+        HALF_OPEN
+
+    }
+
+    private final String url;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long totalFailures;
+
+    private String lastFailure;
+
+    private long lastFailureTime;
+
+    private long blockedSince;
+
+    /**
+     * Whether the request which is allowed through while {@link State#HALF_OPEN} has already been let through.
+     */
+    private boolean trialInProgress;
+
+    /**
+     * When the request which is allowed through while {@link State#HALF_OPEN} was let through.
+     */
+    private long trialStartTime;
+
+
+    public RemoteRepositoryStatus(String url)
+    {
+        this.url = url;
+    }
+
+    synchronized boolean allowRequest()
+    {
+        return admit() != null;
+    }
+
+    /**
+     * @return <code>null</code>, if the request is not allowed, {@link State#HALF_OPEN}, if it is the trial request
+     *         which decides whether the remote repository is unblocked, or {@link State#CLOSED} otherwise
+     */
+    synchronized State admit()
+    {
+        switch (state)
+        {
+            case CLOSED:
+                return State.CLOSED;
+            case HALF_OPEN:
+                if (!trialInProgress)
+                {
+                    trialInProgress = true;
+                    trialStartTime = System.currentTimeMillis();
+
+                    return State.HALF_OPEN;
+                }
+
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Lets another request through, if the trial request has finished without reaching the remote repository (for
+     * example, because the artifact was found in the local cache in the meantime).
+     */
+    synchronized void releaseTrial()
+    {
+        if (state == State.HALF_OPEN)
+        {
+            trialInProgress = false;
+        }
+    }
+
+    /**
+     * @return <code>true</code>, if the remote repository was unblocked
+     */
+    synchronized boolean recordSuccess()
+    {
+        boolean unblocked = state != State.CLOSED;
+
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInProgress = false;
+        blockedSince = 0;
+
+        return unblocked;
+    }
+
+    /**
+     * @return <code>true</code>, if the remote repository was blocked
+     */
+    synchronized boolean recordFailure(String reason,
+                                       int failureThreshold)
+    {
+        consecutiveFailures++;
+        totalFailures++;
+        lastFailure = reason;
+        lastFailureTime = System.currentTimeMillis();
+
+        if (state == State.HALF_OPEN)
+        {
+            // The trial request failed, so keep it blocked, until the next probe.
+            state = State.OPEN;
+            trialInProgress = false;
+
+            return false;
+        }
+
+        if (state == State.CLOSED && consecutiveFailures >= failureThreshold)
+        {
+            state = State.OPEN;
+            blockedSince = lastFailureTime;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    synchronized void halfOpen()
+    {
+        if (state == State.OPEN)
+        {
+            state = State.HALF_OPEN;
+            trialInProgress = false;
+        }
+    }
+
+    /**
+     * Blocks the remote repository again, if the trial request was let through before the specified time and has
+     * not finished since, so that it can be probed again.
+     *
+     * @return <code>true</code>, if the trial request has expired
+     */
+    synchronized boolean expireTrial(long startedBefore)
+    {
+        if (state == State.HALF_OPEN && trialInProgress && trialStartTime < startedBefore)
+        {
+            state = State.OPEN;
+            trialInProgress = false;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures()
+    {
+        return consecutiveFailures;
+    }
+
+    public synchronized long getTotalFailures()
+    {
+        return totalFailures;
+    }
+
+    public synchronized String getLastFailure()
+    {
+        return lastFailure;
+    }
+
+    public synchronized long getLastFailureTime()
+    {
+        return lastFailureTime;
+    }
+
+    public synchronized long getBlockedSince()
+    {
+        return blockedSince;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "state: " + state +
+               ", url: " + url +
+               ", consecutiveFailures: " + consecutiveFailures +
+               ", totalFailures: " + totalFailures +
+               ", lastFailure: " + lastFailure;
+    }
+
+}
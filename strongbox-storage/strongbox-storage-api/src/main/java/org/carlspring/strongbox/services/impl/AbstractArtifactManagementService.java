@@ -10,8 +10,8 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
-import javax.transaction.Transactional;
 
+import org.apache.commons.io.IOUtils;
 import org.carlspring.maven.commons.util.ArtifactUtils;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.client.ArtifactTransportException;
@@ -21,6 +21,7 @@ import org.carlspring.strongbox.domain.ArtifactEntry;
 import org.carlspring.strongbox.io.ArtifactOutputStream;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.providers.io.RepositoryFileAttributes;
+import org.carlspring.strongbox.providers.io.RepositoryFileSystemProvider;
 import org.carlspring.strongbox.providers.io.RepositoryPath;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
@@ -30,6 +31,8 @@ import org.carlspring.strongbox.services.ArtifactResolutionService;
 import org.carlspring.strongbox.services.VersionValidatorService;
 import org.carlspring.strongbox.storage.ArtifactStorageException;
 import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.cache.GroupResolutionCache;
+import org.carlspring.strongbox.storage.cache.NegativeLookupCache;
 import org.carlspring.strongbox.storage.checksum.ArtifactChecksum;
 import org.carlspring.strongbox.storage.checksum.ChecksumCacheManager;
 import org.carlspring.strongbox.storage.repository.Repository;
@@ -38,6 +41,7 @@ import org.carlspring.strongbox.storage.validation.version.VersionValidationExce
 import org.carlspring.strongbox.storage.validation.version.VersionValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Sergey Bespalov
@@ -49,6 +53,8 @@ public abstract class AbstractArtifactManagementService implements ArtifactManag
     
     private static final Logger logger = LoggerFactory.getLogger(AbstractArtifactManagementService.class);
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
 
     @Inject
     protected ArtifactOperationsValidator artifactOperationsValidator;
@@ -70,9 +76,17 @@ public abstract class AbstractArtifactManagementService implements ArtifactManag
 
     @Inject
     protected ChecksumCacheManager checksumCacheManager;
-    
+
+    @Inject
+    protected NegativeLookupCache negativeLookupCache;
+
+    @Inject
+    protected GroupResolutionCache groupResolutionCache;
+
+    @Inject
+    protected TransactionTemplate transactionTemplate;
+
     @Override
-    @Transactional
     public void store(String storageId,
                       String repositoryId,
                       String path,
@@ -91,8 +105,13 @@ public abstract class AbstractArtifactManagementService implements ArtifactManag
         store(repositoryPath, is);
     }
 
+    /**
+     * The upload is not done in a transaction: the bytes are first streamed into a file of their own in the temporary
+     * directory of the repository (see {@link RepositoryFileSystemProvider#getStagingPath(RepositoryPath)}) and only
+     * once they are all on disk, the file is moved into place and recorded in the database (in a transaction of its
+     * own), so that slow uploads don't hold on to a database connection.
+     */
     @Override
-    @Transactional
     public void store(RepositoryPath repositoryPath,
                       InputStream is)
             throws IOException,
@@ -105,14 +124,40 @@ public abstract class AbstractArtifactManagementService implements ArtifactManag
         String artifactPathRelative = repositoryPath.getRepositoryRelative().toString();
         performRepositoryAcceptanceValidation(storage.getId(), repository.getId(), artifactPathRelative);
 
+        // Paths which already are in the temporary directory (such as the ones of proxied artifacts, which are being
+        // downloaded) are written directly and moved into place by whoever is storing them. Any other path is staged
+        // by the file system provider: the upload is written into a unique file in the temporary directory, which is
+        // synced to disk and then renamed into place when the stream is closed, or removed, if the stream has been
+        // aborted. The checksum files are only written once the upload has been moved into place.
         try (final ArtifactOutputStream aos = (ArtifactOutputStream) Files.newOutputStream(repositoryPath))
         {
-            doStore(repositoryPath, is, aos);
+            try
+            {
+                doStore(repositoryPath, is, aos);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // Never store a partial upload.
+                aos.abort();
+
+                throw e;
+            }
         }
         catch (IOException e)
         {
             throw new ArtifactStorageException(e);
         }
+
+        transactionTemplate.execute(status -> {
+            storeArtifact(repositoryPath);
+
+            return null;
+        });
+
+        // The path may have been looked up (and not found) via a group before it was stored,
+        // or it may now have to be served by a different member of the groups containing this repository.
+        negativeLookupCache.invalidate(artifactPathRelative);
+        groupResolutionCache.invalidate(artifactPathRelative);
     }
 
     private void doStore(RepositoryPath repositoryPath,
@@ -134,14 +179,8 @@ public abstract class AbstractArtifactManagementService implements ArtifactManag
             aos.setCacheOutputStream(new ByteArrayOutputStream());
         }
 
-        int readLength;
-        byte[] bytes = new byte[4096];
-        while ((readLength = is.read(bytes, 0, bytes.length)) != -1)
-        {
-            // Write the artifact
-            aos.write(bytes, 0, readLength);
-            aos.flush();
-        }
+        // The stream is only flushed once, when it's closed.
+        IOUtils.copyLarge(is, aos, new byte[BUFFER_SIZE]);
 
         Map<String, String> digestMap = aos.getDigestMap();
         if (Boolean.FALSE.equals(checksumAttribute) && !digestMap.isEmpty())
@@ -159,8 +198,6 @@ public abstract class AbstractArtifactManagementService implements ArtifactManag
                 validateUploadedChecksumAgainstCache(checksumValue, artifactPath);
             }
         }
-
-        storeArtifact(repositoryPath);
     }
 
     private void storeArtifact(RepositoryPath path)
@@ -4,13 +4,21 @@ import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
 import org.carlspring.strongbox.configuration.ConfigurationRepository;
 import org.carlspring.strongbox.configuration.ProxyConfiguration;
+import org.carlspring.strongbox.providers.layout.AbstractLayoutProvider;
+import org.carlspring.strongbox.providers.layout.LayoutProvider;
+import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
+import org.carlspring.strongbox.providers.repository.ArtifactResolverRegistry;
+import org.carlspring.strongbox.providers.repository.RemoteRepositoryCircuitBreaker;
 import org.carlspring.strongbox.services.ConfigurationManagementService;
 import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.cache.GroupResolutionCache;
+import org.carlspring.strongbox.storage.cache.NegativeLookupCache;
 import org.carlspring.strongbox.storage.repository.HttpConnectionPool;
 import org.carlspring.strongbox.storage.repository.Repository;
 import org.carlspring.strongbox.storage.repository.RepositoryTypeEnum;
 import org.carlspring.strongbox.storage.routing.RoutingRule;
 import org.carlspring.strongbox.storage.routing.RoutingRules;
+import org.carlspring.strongbox.storage.routing.RoutingRulesMatcher;
 import org.carlspring.strongbox.storage.routing.RuleSet;
 
 import javax.inject.Inject;
@@ -43,6 +51,24 @@ public class ConfigurationManagementServiceImpl
     @Inject
     ConfigurationRepository configurationRepository;
 
+    @Inject
+    private NegativeLookupCache negativeLookupCache;
+
+    @Inject
+    private GroupResolutionCache groupResolutionCache;
+
+    @Inject
+    private RoutingRulesMatcher routingRulesMatcher;
+
+    @Inject
+    private ArtifactResolverRegistry artifactResolverRegistry;
+
+    @Inject
+    private RemoteRepositoryCircuitBreaker remoteRepositoryCircuitBreaker;
+
+    @Inject
+    private LayoutProviderRegistry layoutProviderRegistry;
+
 
     @Override
     public void setConfiguration(Configuration configuration)
@@ -52,6 +78,9 @@ public class ConfigurationManagementServiceImpl
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
         configurationManager.setRepositoryStorageRelationships();
+        artifactResolverRegistry.removeArtifactResolvers();
+        removeRepositoryFileSystems();
+        invalidateLookupCaches();
     }
 
     @Override
@@ -131,6 +160,7 @@ public class ConfigurationManagementServiceImpl
         configuration.addStorage(storage);
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+        invalidateLookupCaches();
     }
 
     @Override
@@ -145,9 +175,22 @@ public class ConfigurationManagementServiceImpl
             throws IOException, JAXBException
     {
         Configuration configuration = configurationManager.getConfiguration();
+
+        Storage storage = configuration.getStorage(storageId);
+        if (storage != null)
+        {
+            storage.getRepositories()
+                   .keySet()
+                   .forEach(repositoryId -> {
+                       artifactResolverRegistry.removeArtifactResolver(storageId, repositoryId);
+                       removeRepositoryFileSystem(storageId, repositoryId);
+                   });
+        }
+
         configuration.getStorages().remove(storageId);
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+        invalidateLookupCaches();
     }
 
     @Override
@@ -160,6 +203,10 @@ public class ConfigurationManagementServiceImpl
                      .addRepository(repository);
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+        artifactResolverRegistry.removeArtifactResolver(storageId, repository.getId());
+        remoteRepositoryCircuitBreaker.reset(storageId, repository.getId());
+        removeRepositoryFileSystem(storageId, repository.getId());
+        invalidateLookupCaches();
     }
 
     @Override
@@ -224,6 +271,7 @@ public class ConfigurationManagementServiceImpl
             }
 
             configurationManager.store();
+            invalidateLookupCaches();
         }
     }
 
@@ -235,9 +283,13 @@ public class ConfigurationManagementServiceImpl
         Configuration configuration = configurationManager.getConfiguration();
         configuration.getStorage(storageId).removeRepository(repositoryId);
         removeRepositoryFromAssociatedGroups(repositoryId);
+        artifactResolverRegistry.removeArtifactResolver(storageId, repositoryId);
+        remoteRepositoryCircuitBreaker.reset(storageId, repositoryId);
+        removeRepositoryFileSystem(storageId, repositoryId);
 
         configurationManager.setConfiguration(configuration);
         configurationManager.store();
+        invalidateLookupCaches();
     }
 
     @Override
@@ -254,6 +306,7 @@ public class ConfigurationManagementServiceImpl
 
         repository.getHttpConnectionPool().setAllocatedConnections(numberOfConnections);
         configurationManager.store();
+        artifactResolverRegistry.removeArtifactResolver(storageId, repositoryId);
     }
 
     @Override
@@ -382,6 +435,46 @@ public class ConfigurationManagementServiceImpl
     private void updateConfiguration(Configuration configuration)
     {
         configurationRepository.updateConfiguration(configuration);
+
+        invalidateLookupCaches();
+    }
+
+    /**
+     * Drops the file systems which the layout providers hold for a repository, once it has been removed, or replaced.
+     */
+    private void removeRepositoryFileSystem(String storageId,
+                                            String repositoryId)
+    {
+        for (LayoutProvider layoutProvider : layoutProviderRegistry.getProviders().values())
+        {
+            if (layoutProvider instanceof AbstractLayoutProvider)
+            {
+                ((AbstractLayoutProvider) layoutProvider).removeRepositoryFileSystem(storageId, repositoryId);
+            }
+        }
+    }
+
+    private void removeRepositoryFileSystems()
+    {
+        for (LayoutProvider layoutProvider : layoutProviderRegistry.getProviders().values())
+        {
+            if (layoutProvider instanceof AbstractLayoutProvider)
+            {
+                ((AbstractLayoutProvider) layoutProvider).removeRepositoryFileSystems();
+            }
+        }
+    }
+
+    /**
+     * The group memberships, the repository settings and the routing rules all affect
+     * which paths can be resolved (and from where), so the lookup caches need to be cleared
+     * and the routing rules need to be re-compiled.
+     */
+    private void invalidateLookupCaches()
+    {
+        routingRulesMatcher.compile(getRoutingRules());
+        negativeLookupCache.clear();
+        groupResolutionCache.clear();
     }
 
 }
@@ -0,0 +1,118 @@
+package org.carlspring.strongbox.storage.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A concurrent map holding at most a fixed number of entries. When it is full, the least recently used entries are
+ * dropped to make room for the new ones.
+ * <p>
+ * This is the storage of the in-memory caches of the repositories (such as the {@link NegativeLookupCache}). The
+ * caches key their entries, so that the entries affected by a change can be looked up directly, instead of being
+ * searched for.
+ */
+public class BoundedCache<K, V>
+{
+
+    private final int maxEntries;
+
+    private final ConcurrentMap<K, V> entries;
+
+
+    public BoundedCache(int maxEntries)
+    {
+        this(maxEntries, 0L);
+    }
+
+    /**
+     * @param maxEntries              the maximum number of entries
+     * @param expireAfterWriteSeconds the number of seconds after which an entry is dropped, once it has been
+     *                                written (0 for none)
+     */
+    public BoundedCache(int maxEntries,
+                        long expireAfterWriteSeconds)
+    {
+        this.maxEntries = maxEntries;
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxEntries);
+        if (expireAfterWriteSeconds > 0)
+        {
+            builder.expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS);
+        }
+
+        Cache<K, V> cache = builder.build();
+
+        this.entries = cache.asMap();
+    }
+
+    public V get(K key)
+    {
+        return entries.get(key);
+    }
+
+    public void put(K key,
+                    V value)
+    {
+        entries.put(key, value);
+    }
+
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction)
+    {
+        return entries.computeIfAbsent(key, mappingFunction);
+    }
+
+    public V computeIfPresent(K key,
+                              BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+    {
+        return entries.computeIfPresent(key, remappingFunction);
+    }
+
+    public V remove(K key)
+    {
+        return entries.remove(key);
+    }
+
+    public boolean remove(K key,
+                          V value)
+    {
+        return entries.remove(key, value);
+    }
+
+    /**
+     * Removes the entries matching the predicate. This has to go through all the entries, so it should only be
+     * used for rare events, such as the removal of a repository.
+     */
+    public void removeIf(BiPredicate<? super K, ? super V> predicate)
+    {
+        entries.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue()));
+    }
+
+    public Collection<V> values()
+    {
+        return entries.values();
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    public long getSize()
+    {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.carlspring.strongbox.storage.cache;
+
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the metadata files which group repositories have merged from the copies of their members, so that they
+ * don't have to be merged on every request.
+ * <p>
+ * Each entry is stored along with a stamp of the members' copies it was merged from (see
+ * {@link org.carlspring.strongbox.providers.repository.GroupRepositoryProvider}). An entry is only valid for as long
+ * as the stamp stays the same, so a change to any member's copy, or to the members of the group, invalidates it.
+ */
+public class GroupMetadataCache
+{
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * K: path
+     * V: (K: storageId:repositoryId of the group, V: the merged metadata)
+     */
+    private final BoundedCache<String, ConcurrentMap<String, Entry>> mergedPaths;
+
+
+    public GroupMetadataCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of paths to keep the merged metadata of
+     */
+    public GroupMetadataCache(int maxEntries)
+    {
+        mergedPaths = new BoundedCache<>(maxEntries);
+    }
+
+    /**
+     * @return the merged metadata, or <code>null</code>, if it hasn't been merged from the members' copies
+     *         described by the stamp
+     */
+    public byte[] get(Repository groupRepository,
+                      String path,
+                      String stamp)
+    {
+        Map<String, Entry> groups = mergedPaths.get(path);
+        if (groups == null)
+        {
+            return null;
+        }
+
+        String groupKey = GroupResolutionCache.getRepositoryKey(groupRepository);
+
+        Entry entry = groups.get(groupKey);
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (!entry.stamp.equals(stamp))
+        {
+            groups.remove(groupKey, entry);
+
+            return null;
+        }
+
+        return entry.contents;
+    }
+
+    public void put(Repository groupRepository,
+                    String path,
+                    String stamp,
+                    byte[] contents)
+    {
+        mergedPaths.computeIfAbsent(path, p -> new ConcurrentHashMap<>())
+                   .put(GroupResolutionCache.getRepositoryKey(groupRepository), new Entry(stamp, contents));
+    }
+
+    public void clear()
+    {
+        mergedPaths.clear();
+    }
+
+    public int getMaxEntries()
+    {
+        return mergedPaths.getMaxEntries();
+    }
+
+    public long getSize()
+    {
+        return mergedPaths.getSize();
+    }
+
+    private static class Entry
+    {
+
+        private final String stamp;
+
+        private final byte[] contents;
+
+
+        Entry(String stamp,
+              byte[] contents)
+        {
+            this.stamp = stamp;
+            this.contents = contents;
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.carlspring.strongbox.storage.cache;
+
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers which member of a group repository a path was last resolved from, so that repeated requests
+ * can go straight to that member, instead of walking all the members (and those of the nested groups)
+ * in order.
+ * <p>
+ * The member is always a non-group repository, even if it was reached via a nested group.
+ * <p>
+ * Since storing a path in a member which comes earlier in a group changes which member the path should be
+ * served from, storing a file invalidates the entries for its path in all the groups. Changes to the group
+ * memberships, or the routing rules, should clear the cache.
+ */
+public class GroupResolutionCache
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupResolutionCache.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 50000;
+
+    /**
+     * K: path
+     * V: (K: storageId:repositoryId of the group, V: storageId:repositoryId of the member)
+     */
+    private final BoundedCache<String, ConcurrentMap<String, String>> resolvedPaths;
+
+
+    public GroupResolutionCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of paths to keep track of
+     */
+    public GroupResolutionCache(int maxEntries)
+    {
+        resolvedPaths = new BoundedCache<>(maxEntries);
+    }
+
+    /**
+     * @return the storageId:repositoryId of the member the path was resolved from,
+     *         or <code>null</code>, if the path is not known to the cache.
+     */
+    public String get(Repository groupRepository,
+                      String path)
+    {
+        Map<String, String> groups = resolvedPaths.get(path);
+        if (groups == null)
+        {
+            return null;
+        }
+
+        String member = groups.get(getRepositoryKey(groupRepository));
+        if (member != null)
+        {
+            logger.debug("Path '" + path + "' in " + getRepositoryKey(groupRepository) +
+                         " was last resolved from " + member + ".");
+        }
+
+        return member;
+    }
+
+    public void put(Repository groupRepository,
+                    String path,
+                    String member)
+    {
+        resolvedPaths.computeIfAbsent(path, p -> new ConcurrentHashMap<>())
+                     .put(getRepositoryKey(groupRepository), member);
+    }
+
+    public void remove(Repository groupRepository,
+                       String path)
+    {
+        Map<String, String> groups = resolvedPaths.get(path);
+        if (groups != null)
+        {
+            groups.remove(getRepositoryKey(groupRepository));
+        }
+    }
+
+    /**
+     * Invalidates the entries for the specified path in all the groups.
+     */
+    public void invalidate(String path)
+    {
+        resolvedPaths.remove(path);
+    }
+
+    public void clear()
+    {
+        resolvedPaths.clear();
+    }
+
+    public static String getRepositoryKey(Repository repository)
+    {
+        return repository.getStorage().getId() + ":" + repository.getId();
+    }
+
+    public int getMaxEntries()
+    {
+        return resolvedPaths.getMaxEntries();
+    }
+
+    public long getSize()
+    {
+        return resolvedPaths.getSize();
+    }
+
+}
@@ -0,0 +1,164 @@
+package org.carlspring.strongbox.storage.cache;
+
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the paths which could not be resolved in a proxy or group repository, so that repeated requests
+ * for absent files (which build tools issue quite a lot of) do not have to go through the remote host, or
+ * through all the members of a group, until the repository's negative-cache-ttl has expired.
+ * <p>
+ * Since a file stored in a hosted repository can become visible through any group containing it (directly,
+ * or via nested groups), storing a file invalidates the respective path for all the repositories, along with
+ * the paths next to it, or in one of its parent directories (such as metadata and checksum files).
+ */
+public class NegativeLookupCache
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(NegativeLookupCache.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * The longest time (in seconds) for which a missing path is remembered, regardless of the repository's
+     * negative-cache-ttl.
+     */
+    public static final long DEFAULT_MAX_TTL = 24 * 60 * 60;
+
+    /**
+     * K: storageId:repositoryId/path
+     * V: the time at which the entry expires, as set by the repository's negative-cache-ttl
+     */
+    private final BoundedCache<String, Long> missingPaths;
+
+
+    public NegativeLookupCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of missing paths to keep track of
+     */
+    public NegativeLookupCache(int maxEntries)
+    {
+        this(maxEntries, DEFAULT_MAX_TTL);
+    }
+
+    /**
+     * @param maxEntries the maximum number of missing paths to keep track of
+     * @param maxTtl     the longest time (in seconds) for which a missing path is remembered
+     */
+    public NegativeLookupCache(int maxEntries,
+                               long maxTtl)
+    {
+        missingPaths = new BoundedCache<>(maxEntries, maxTtl);
+    }
+
+    public boolean contains(Repository repository,
+                            String path)
+    {
+        if (repository.getNegativeCacheTtl() <= 0)
+        {
+            return false;
+        }
+
+        String key = getKey(repository, path);
+
+        Long expiresAt = missingPaths.get(key);
+        if (expiresAt == null)
+        {
+            return false;
+        }
+
+        if (expiresAt < System.currentTimeMillis())
+        {
+            missingPaths.remove(key, expiresAt);
+
+            return false;
+        }
+
+        logger.debug("Path '" + path + "' is known to be missing in " + getRepositoryKey(repository) + ".");
+
+        return true;
+    }
+
+    public void put(Repository repository,
+                    String path)
+    {
+        long ttl = repository.getNegativeCacheTtl();
+        if (ttl <= 0)
+        {
+            return;
+        }
+
+        missingPaths.put(getKey(repository, path), System.currentTimeMillis() + ttl * 1000);
+    }
+
+    /**
+     * Invalidates the entries for the specified path, as well as those for the paths located in the same
+     * directory, or in any of its parent directories, in all the repositories.
+     */
+    public void invalidate(String path)
+    {
+        if (missingPaths.getSize() == 0)
+        {
+            return;
+        }
+
+        String directory = getDirectory(path);
+
+        missingPaths.removeIf((key, expiresAt) -> directory.startsWith(getDirectory(getPath(key))));
+    }
+
+    public void invalidate(Repository repository)
+    {
+        String prefix = getRepositoryKey(repository) + "/";
+
+        missingPaths.removeIf((key, expiresAt) -> key.startsWith(prefix));
+    }
+
+    public void clear()
+    {
+        missingPaths.clear();
+    }
+
+    private String getDirectory(String path)
+    {
+        int index = path.lastIndexOf('/');
+
+        return index > -1 ? path.substring(0, index + 1) : "";
+    }
+
+    private String getKey(Repository repository,
+                          String path)
+    {
+        return getRepositoryKey(repository) + "/" + path;
+    }
+
+    private String getPath(String key)
+    {
+        return key.substring(key.indexOf('/') + 1);
+    }
+
+    private String getRepositoryKey(Repository repository)
+    {
+        return repository.getStorage().getId() + ":" + repository.getId();
+    }
+
+    public int getMaxEntries()
+    {
+        return missingPaths.getMaxEntries();
+    }
+
+    /**
+     * @return the number of missing paths
+     */
+    public long getSize()
+    {
+        return missingPaths.getSize();
+    }
+
+}
@@ -0,0 +1,164 @@
+package org.carlspring.strongbox.storage.checksum;
+
+import org.carlspring.strongbox.storage.cache.BoundedCache;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the checksums of the artifacts, so that they can be exposed as the
+ * {@link org.carlspring.strongbox.providers.io.RepositoryFileAttributes#CHECKSUMS} attribute without having to read
+ * the checksum files on every request.
+ * <p>
+ * The checksums are recorded when the artifact is stored (or read from the checksum files the first time they are
+ * asked for) and are only valid for as long as the size and the last modified time of the artifact stay the same.
+ * Storing, or deleting a checksum file through the repository file system updates the respective entry.
+ */
+public class ChecksumAttributeCache
+{
+
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    /**
+     * K: the path of the artifact in the storage
+     * V: the checksums of the artifact, as of the time it was last modified
+     */
+    private final BoundedCache<Path, Entry> entries;
+
+
+    public ChecksumAttributeCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of artifacts to keep the checksums of
+     */
+    public ChecksumAttributeCache(int maxEntries)
+    {
+        entries = new BoundedCache<>(maxEntries);
+    }
+
+    /**
+     * @return the checksums of the artifact (K: the digest algorithm, V: the checksum), or <code>null</code>, if
+     *         they have not been recorded for its current contents
+     */
+    public Map<String, String> get(Path path,
+                                   BasicFileAttributes attributes)
+    {
+        Entry entry = entries.get(path);
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (!entry.matches(attributes))
+        {
+            entries.remove(path, entry);
+
+            return null;
+        }
+
+        return entry.checksums;
+    }
+
+    public void put(Path path,
+                    BasicFileAttributes attributes,
+                    Map<String, String> checksums)
+    {
+        entries.put(path, new Entry(attributes, checksums));
+    }
+
+    /**
+     * Updates the checksum of an artifact, whose checksums have already been recorded, after its checksum file has
+     * been stored.
+     */
+    public void update(Path path,
+                       String algorithm,
+                       String checksum)
+    {
+        entries.computeIfPresent(path, (p, entry) -> {
+            Map<String, String> checksums = new LinkedHashMap<>(entry.checksums);
+            if (checksum != null)
+            {
+                checksums.put(algorithm, checksum);
+            }
+            else
+            {
+                checksums.remove(algorithm);
+            }
+
+            return new Entry(entry.size, entry.lastModified, checksums);
+        });
+    }
+
+    /**
+     * Hands the checksums of an artifact over to the path it has been moved to (the size and the last modified time
+     * of a file are kept when it's moved).
+     */
+    public void move(Path source,
+                     Path target)
+    {
+        Entry entry = entries.remove(source);
+        if (entry != null)
+        {
+            entries.put(target, entry);
+        }
+    }
+
+    public void invalidate(Path path)
+    {
+        entries.remove(path);
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    public int getMaxEntries()
+    {
+        return entries.getMaxEntries();
+    }
+
+    public long getSize()
+    {
+        return entries.getSize();
+    }
+
+    private static class Entry
+    {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final Map<String, String> checksums;
+
+
+        Entry(BasicFileAttributes attributes,
+              Map<String, String> checksums)
+        {
+            this(attributes.size(), attributes.lastModifiedTime().toMillis(), checksums);
+        }
+
+        Entry(long size,
+              long lastModified,
+              Map<String, String> checksums)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksums = Collections.unmodifiableMap(new LinkedHashMap<>(checksums));
+        }
+
+        boolean matches(BasicFileAttributes attributes)
+        {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+
+    }
+
+}
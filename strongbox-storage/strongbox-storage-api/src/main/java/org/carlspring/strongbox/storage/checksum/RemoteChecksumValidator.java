@@ -0,0 +1,175 @@
+package org.carlspring.strongbox.storage.checksum;
+
+import org.carlspring.strongbox.client.ArtifactResolver;
+import org.carlspring.strongbox.providers.io.RepositoryFileSystem;
+import org.carlspring.strongbox.providers.io.RepositoryPath;
+import org.carlspring.strongbox.storage.ArtifactStorageException;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+import org.carlspring.strongbox.storage.repository.RepositoryChecksumPolicyValidationTypeEnum;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.MessageDigestAlgorithms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Validates the checksums of artifacts downloaded by proxy repositories against the checksum files published by
+ * the remote repository, in accordance with the remote repository's checksum-validation and checksum-policy settings:
+ * <ul>
+ *     <li>Strict: the download fails, if the checksums do not match, or the remote repository has no checksums</li>
+ *     <li>Warn (the default): mismatches are logged as warnings</li>
+ *     <li>Log: mismatches are logged as information</li>
+ * </ul>
+ * The checksums of the downloaded file are expected to have been calculated while it was being downloaded.
+ * <p>
+ * Note that a mismatch can only be detected once the whole file has been received. By then, the clients served
+ * while the file was being downloaded may already have received its contents (they only get an error at the end of
+ * the transfer), so in the strict mode the caller has to discard the downloaded file (and its checksum files),
+ * instead of caching it.
+ */
+@Component("remoteChecksumValidator")
+public class RemoteChecksumValidator
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteChecksumValidator.class);
+
+    /**
+     * The algorithms to validate against, in order of preference. Only the first one the remote repository
+     * has a checksum file for is validated.
+     */
+    private static final String[] ALGORITHMS = { MessageDigestAlgorithms.SHA_1,
+                                                 MessageDigestAlgorithms.MD5 };
+
+
+    /**
+     * @param artifactPath the path of the downloaded artifact in the proxy repository
+     * @param digests      K: algorithm V: the hexadecimal digest of the downloaded file
+     * @param resolver     the resolver for the remote repository
+     * @throws ArtifactStorageException if the checksums do not match and the policy is strict
+     */
+    public void validate(RepositoryPath artifactPath,
+                         Map<String, String> digests,
+                         ArtifactResolver resolver)
+            throws ArtifactStorageException
+    {
+        RepositoryFileSystem fileSystem = artifactPath.getFileSystem();
+        Repository repository = fileSystem.getRepository();
+
+        RemoteRepository remoteRepository = repository.getRemoteRepository();
+        if (remoteRepository == null || !remoteRepository.isChecksumValidation())
+        {
+            return;
+        }
+
+        RepositoryChecksumPolicyValidationTypeEnum policy = getPolicy(remoteRepository);
+        String path = artifactPath.getRepositoryRelative().toString();
+
+        for (String algorithm : ALGORITHMS)
+        {
+            String digest = digests.get(algorithm);
+            if (digest == null)
+            {
+                continue;
+            }
+
+            String checksumPath = path + "." + fileSystem.getChecksumExtension(algorithm);
+
+            String remoteChecksum = getRemoteChecksum(resolver, checksumPath);
+            if (remoteChecksum == null)
+            {
+                continue;
+            }
+
+            if (!remoteChecksum.equalsIgnoreCase(digest))
+            {
+                report(policy,
+                       "The " + algorithm + " checksum of " + path + " in " + repository.getStorage().getId() + ":" +
+                       repository.getId() + " (" + digest + ") does not match the remote one (" + remoteChecksum +
+                       ")!");
+            }
+            else
+            {
+                logger.debug("Validated the " + algorithm + " checksum of " + path + ".");
+            }
+
+            return;
+        }
+
+        report(policy,
+               "No remote checksums are available for " + path + " in " + repository.getStorage().getId() + ":" +
+               repository.getId() + ".");
+    }
+
+    private void report(RepositoryChecksumPolicyValidationTypeEnum policy,
+                        String message)
+            throws ArtifactStorageException
+    {
+        switch (policy)
+        {
+            case STRICT:
+                throw new ArtifactStorageException(message);
+            case LOG:
+                logger.info(message);
+                break;
+            default:
+                logger.warn(message);
+                break;
+        }
+    }
+
+    /**
+     * @return the checksum, or <code>null</code>, if the remote repository does not have it
+     */
+    protected String getRemoteChecksum(ArtifactResolver resolver,
+                                       String checksumPath)
+    {
+        try
+        {
+            Response response = resolver.getResourceWithResponse(checksumPath);
+            try
+            {
+                if (response.getStatus() != Response.Status.OK.getStatusCode() || !response.hasEntity())
+                {
+                    return null;
+                }
+
+                // Checksum files may also contain the name of the file, after the checksum itself.
+                String checksum = response.readEntity(String.class).trim();
+
+                return !checksum.isEmpty() ? checksum.split("\\s+")[0] : null;
+            }
+            finally
+            {
+                response.close();
+            }
+        }
+        catch (Exception e)
+        {
+            logger.debug("Failed to retrieve " + checksumPath + ".", e);
+
+            return null;
+        }
+    }
+
+    private RepositoryChecksumPolicyValidationTypeEnum getPolicy(RemoteRepository remoteRepository)
+    {
+        String checksumPolicy = remoteRepository.getChecksumPolicy();
+        if (checksumPolicy != null)
+        {
+            for (RepositoryChecksumPolicyValidationTypeEnum policy : RepositoryChecksumPolicyValidationTypeEnum.values())
+            {
+                if (policy.getPolicyType().equalsIgnoreCase(checksumPolicy))
+                {
+                    return policy;
+                }
+            }
+        }
+
+        return RepositoryChecksumPolicyValidationTypeEnum.WARN;
+    }
+
+}
@@ -0,0 +1,222 @@
+package org.carlspring.strongbox.storage.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates the routing rules of the group repositories against pre-compiled patterns.
+ * <p>
+ * The rules are compiled into an immutable structure the first time they are needed, and again whenever the
+ * configuration's {@link RoutingRules} instance is replaced, or {@link #compile(RoutingRules)} is invoked
+ * after the rules have been modified.
+ */
+public class RoutingRulesMatcher
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingRulesMatcher.class);
+
+    private volatile CompiledRoutingRules compiledRoutingRules;
+
+
+    public RoutingRulesMatcher()
+    {
+    }
+
+    /**
+     * @return the ids of the repositories which the accept rules of the specified group repository
+     *         route the path to, in the order in which they should be checked.
+     */
+    public List<String> getAcceptedRepositories(RoutingRules routingRules,
+                                                String groupRepositoryId,
+                                                String artifactPath)
+    {
+        return getAcceptedRepositories(getCompiledRoutingRules(routingRules).accepted.get(groupRepositoryId),
+                                       artifactPath);
+    }
+
+    /**
+     * @return the ids of the repositories which the wildcard accept rules route the path to,
+     *         in the order in which they should be checked.
+     */
+    public List<String> getWildcardAcceptedRepositories(RoutingRules routingRules,
+                                                        String artifactPath)
+    {
+        return getAcceptedRepositories(getCompiledRoutingRules(routingRules).accepted.get(RoutingRules.WILDCARD),
+                                       artifactPath);
+    }
+
+    /**
+     * @return <code>true</code>, if the deny rules of the specified group repository, or the wildcard deny rules,
+     *         reject the path for the specified member.
+     */
+    public boolean rejects(RoutingRules routingRules,
+                           String groupRepositoryId,
+                           String repositoryId,
+                           String artifactPath)
+    {
+        CompiledRoutingRules rules = getCompiledRoutingRules(routingRules);
+
+        return rejects(rules.denied.get(groupRepositoryId), repositoryId, artifactPath) ||
+               rejects(rules.denied.get(RoutingRules.WILDCARD), repositoryId, artifactPath);
+    }
+
+    /**
+     * Compiles the specified routing rules. This needs to be invoked whenever the rules are modified.
+     */
+    public void compile(RoutingRules routingRules)
+    {
+        compiledRoutingRules = new CompiledRoutingRules(routingRules);
+    }
+
+    private CompiledRoutingRules getCompiledRoutingRules(RoutingRules routingRules)
+    {
+        CompiledRoutingRules rules = compiledRoutingRules;
+        if (rules == null || rules.source != routingRules)
+        {
+            rules = new CompiledRoutingRules(routingRules);
+            compiledRoutingRules = rules;
+        }
+
+        return rules;
+    }
+
+    private List<String> getAcceptedRepositories(List<CompiledRoutingRule> rules,
+                                                 String artifactPath)
+    {
+        if (rules == null)
+        {
+            return Collections.emptyList();
+        }
+
+        Set<String> repositories = new LinkedHashSet<>();
+        for (CompiledRoutingRule rule : rules)
+        {
+            if (rule.matches(artifactPath))
+            {
+                repositories.addAll(rule.repositories);
+            }
+        }
+
+        return new ArrayList<>(repositories);
+    }
+
+    private boolean rejects(List<CompiledRoutingRule> rules,
+                            String repositoryId,
+                            String artifactPath)
+    {
+        if (rules == null)
+        {
+            return false;
+        }
+
+        for (CompiledRoutingRule rule : rules)
+        {
+            if (rule.repositories.contains(repositoryId) && rule.matches(artifactPath))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static class CompiledRoutingRules
+    {
+
+        private final RoutingRules source;
+
+        /**
+         * K: groupRepositoryId
+         * V: the compiled rules
+         */
+        private final Map<String, List<CompiledRoutingRule>> accepted;
+
+        private final Map<String, List<CompiledRoutingRule>> denied;
+
+
+        CompiledRoutingRules(RoutingRules routingRules)
+        {
+            this.source = routingRules;
+            this.accepted = compile(routingRules != null ? routingRules.getAccepted() : null);
+            this.denied = compile(routingRules != null ? routingRules.getDenied() : null);
+        }
+
+        private static Map<String, List<CompiledRoutingRule>> compile(Map<String, RuleSet> ruleSets)
+        {
+            if (ruleSets == null || ruleSets.isEmpty())
+            {
+                return Collections.emptyMap();
+            }
+
+            Map<String, List<CompiledRoutingRule>> compiledRuleSets = new HashMap<>();
+            for (Map.Entry<String, RuleSet> entry : ruleSets.entrySet())
+            {
+                RuleSet ruleSet = entry.getValue();
+                if (ruleSet == null || ruleSet.getRoutingRules() == null || ruleSet.getRoutingRules().isEmpty())
+                {
+                    continue;
+                }
+
+                List<CompiledRoutingRule> compiledRules = new ArrayList<>(ruleSet.getRoutingRules().size());
+                for (RoutingRule rule : ruleSet.getRoutingRules())
+                {
+                    if (rule.getPattern() == null)
+                    {
+                        continue;
+                    }
+
+                    try
+                    {
+                        compiledRules.add(new CompiledRoutingRule(Pattern.compile(rule.getPattern()),
+                                                                  rule.getRepositories()));
+                    }
+                    catch (PatternSyntaxException e)
+                    {
+                        logger.error("Invalid routing rule pattern '" + rule.getPattern() + "' for group " +
+                                     entry.getKey() + ". The rule will be ignored.", e);
+                    }
+                }
+
+                compiledRuleSets.put(entry.getKey(), Collections.unmodifiableList(compiledRules));
+            }
+
+            return Collections.unmodifiableMap(compiledRuleSets);
+        }
+
+    }
+
+    private static class CompiledRoutingRule
+    {
+
+        private final Pattern pattern;
+
+        private final List<String> repositories;
+
+
+        CompiledRoutingRule(Pattern pattern,
+                            Set<String> repositories)
+        {
+            this.pattern = pattern;
+            this.repositories = repositories != null ?
+                                Collections.unmodifiableList(new ArrayList<>(repositories)) :
+                                Collections.emptyList();
+        }
+
+        boolean matches(String artifactPath)
+        {
+            return pattern.matcher(artifactPath).matches();
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.carlspring.strongbox.providers.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CacheFillInputStreamTest
+{
+
+    private static final Path TEST_DIR = Paths.get("target/cache-fill-input-stream-test");
+
+    private Path tempPath;
+
+    private Path path;
+
+    private byte[] content;
+
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        Files.createDirectories(TEST_DIR);
+
+        tempPath = TEST_DIR.resolve("foo-1.2.3.jar.tmp");
+        path = TEST_DIR.resolve("foo-1.2.3.jar");
+
+        Files.deleteIfExists(tempPath);
+        Files.deleteIfExists(path);
+
+        content = new byte[64 * 1024];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+    }
+
+    @Test
+    public void testReadWhileDownloading()
+            throws Exception
+    {
+        CompletableFuture<Boolean> download = new CompletableFuture<>();
+
+        Thread writer = new Thread(() -> {
+            try
+            {
+                write(10);
+
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+
+                download.complete(true);
+            }
+            catch (Exception e)
+            {
+                download.completeExceptionally(e);
+            }
+        });
+        writer.start();
+
+        try (InputStream is = new CacheFillInputStream(tempPath, path, download))
+        {
+            assertArrayEquals(content, ByteStreams.toByteArray(is));
+        }
+
+        writer.join();
+    }
+
+    @Test
+    public void testReadAfterDownload()
+            throws Exception
+    {
+        write(0);
+
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+
+        try (InputStream is = new CacheFillInputStream(tempPath, path, CompletableFuture.completedFuture(true)))
+        {
+            assertArrayEquals(content, ByteStreams.toByteArray(is));
+        }
+    }
+
+    @Test
+    public void testFailedDownload()
+            throws Exception
+    {
+        CompletableFuture<Boolean> download = new CompletableFuture<>();
+
+        try (OutputStream os = Files.newOutputStream(tempPath))
+        {
+            os.write(Arrays.copyOf(content, 1024));
+        }
+
+        try (InputStream is = new CacheFillInputStream(tempPath, path, download))
+        {
+            download.completeExceptionally(new IOException("Connection reset"));
+
+            while (is.read(new byte[4096]) != -1)
+            {
+            }
+
+            fail("Reading a failed download should have failed!");
+        }
+        catch (IOException e)
+        {
+            // This is the expected behavior.
+        }
+    }
+
+    @Test
+    public void testEndIsHeldBackUntilTheDownloadHasSucceeded()
+            throws Exception
+    {
+        CompletableFuture<Boolean> download = new CompletableFuture<>();
+
+        // The whole file has been written, but the download can still fail (for example, its checksums may not match).
+        write(0);
+
+        long total = 0;
+        try (InputStream is = new CacheFillInputStream(tempPath, path, download))
+        {
+            byte[] bytes = new byte[4096];
+            while (total < content.length - CacheFillInputStream.HOLD_BACK)
+            {
+                total += is.read(bytes);
+            }
+
+            assertEquals(content.length - CacheFillInputStream.HOLD_BACK, total);
+
+            download.completeExceptionally(new IOException("Checksum mismatch"));
+
+            is.read(bytes);
+
+            fail("Reading a failed download should have failed!");
+        }
+        catch (IOException e)
+        {
+            // This is the expected behavior.
+        }
+    }
+
+    private void write(long pause)
+            throws IOException, InterruptedException
+    {
+        try (OutputStream os = Files.newOutputStream(tempPath))
+        {
+            for (int offset = 0; offset < content.length; offset += 4096)
+            {
+                os.write(content, offset, Math.min(4096, content.length - offset));
+                os.flush();
+
+                Thread.sleep(pause);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.carlspring.strongbox.providers.io;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyAttributeMapTest
+{
+
+    @Test
+    public void testAttributesAreOnlyComputedOnce()
+    {
+        AtomicInteger checksumCalls = new AtomicInteger();
+        AtomicInteger coordinatesCalls = new AtomicInteger();
+
+        LazyAttributeMap attributes = new LazyAttributeMap();
+        attributes.attribute(RepositoryFileAttributes.CHECKSUM, () -> checksumCalls.incrementAndGet() > 0)
+                  .attribute(RepositoryFileAttributes.COORDINATES, () -> {
+                      coordinatesCalls.incrementAndGet();
+                      return null;
+                  });
+
+        assertEquals(0, checksumCalls.get());
+
+        assertEquals(Boolean.TRUE, attributes.get(RepositoryFileAttributes.CHECKSUM));
+        assertEquals(Boolean.TRUE, attributes.get(RepositoryFileAttributes.CHECKSUM));
+        assertEquals(1, checksumCalls.get());
+        assertEquals(0, coordinatesCalls.get());
+
+        assertNull(attributes.get(RepositoryFileAttributes.COORDINATES));
+        assertNull(attributes.get(RepositoryFileAttributes.COORDINATES));
+        assertEquals(1, coordinatesCalls.get());
+    }
+
+    @Test
+    public void testEntriesContainAllAttributes()
+    {
+        LazyAttributeMap attributes = new LazyAttributeMap();
+        attributes.attribute(RepositoryFileAttributes.TEMP, () -> false)
+                  .attribute(RepositoryFileAttributes.COORDINATES, () -> null);
+        attributes.put(RepositoryFileAttributes.TRASH, true);
+
+        Map<String, Object> copy = new HashMap<>(attributes);
+
+        assertEquals(3, copy.size());
+        assertEquals(Boolean.FALSE, copy.get(RepositoryFileAttributes.TEMP));
+        assertEquals(Boolean.TRUE, copy.get(RepositoryFileAttributes.TRASH));
+        assertTrue(copy.containsKey(RepositoryFileAttributes.COORDINATES));
+        assertNull(attributes.get(RepositoryFileAttributes.INDEX));
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.carlspring.strongbox.providers.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StagedOutputStreamTest
+{
+
+    private static final Path TEST_DIR = Paths.get("target/staged-output-stream-test");
+
+    private Path path;
+
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        Files.createDirectories(TEST_DIR);
+
+        try (Stream<Path> paths = Files.list(TEST_DIR))
+        {
+            for (Path p : (Iterable<Path>) paths::iterator)
+            {
+                Files.delete(p);
+            }
+        }
+
+        path = TEST_DIR.resolve("maven-metadata.xml");
+        Files.write(path, "old".getBytes());
+    }
+
+    @Test
+    public void testContentsArePublishedOnClose()
+            throws IOException
+    {
+        StagedOutputStream os = new StagedOutputStream(path);
+        os.write("new".getBytes());
+
+        // Nothing is visible, until the stream has been closed.
+        assertArrayEquals("old".getBytes(), Files.readAllBytes(path));
+        assertFalse(os.isPublished());
+
+        os.close();
+
+        assertTrue(os.isPublished());
+        assertArrayEquals("new".getBytes(), Files.readAllBytes(path));
+        assertEquals(1, countFiles());
+    }
+
+    @Test
+    public void testAbortedContentsAreDiscarded()
+            throws IOException
+    {
+        StagedOutputStream os = new StagedOutputStream(path);
+        os.write("new".getBytes());
+        os.abort();
+        os.close();
+
+        assertFalse(os.isPublished());
+        assertArrayEquals("old".getBytes(), Files.readAllBytes(path));
+        assertFalse("Failed to remove the staging file!", Files.exists(os.getStagedPath()));
+        assertEquals(1, countFiles());
+    }
+
+    private long countFiles()
+            throws IOException
+    {
+        try (Stream<Path> paths = Files.list(TEST_DIR))
+        {
+            return paths.count();
+        }
+    }
+
+}
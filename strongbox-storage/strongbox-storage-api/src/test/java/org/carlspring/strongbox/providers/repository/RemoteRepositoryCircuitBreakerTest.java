@@ -0,0 +1,175 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import java.net.ServerSocket;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RemoteRepositoryCircuitBreakerTest
+{
+
+    private RemoteRepositoryCircuitBreaker circuitBreaker;
+
+    private Repository repository;
+
+
+    @Before
+    public void setUp()
+    {
+        circuitBreaker = new RemoteRepositoryCircuitBreaker();
+        circuitBreaker.setFailureThreshold(3);
+        circuitBreaker.setProbeTimeout(1000);
+
+        RemoteRepository remoteRepository = new RemoteRepository();
+        remoteRepository.setAutoBlocking(true);
+
+        repository = new Repository("proxy");
+        repository.setStorage(new Storage("storage0"));
+        repository.setRemoteRepository(remoteRepository);
+    }
+
+    @Test
+    public void testBlockAfterConsecutiveFailures()
+    {
+        repository.getRemoteRepository().setUrl("http://localhost:1/");
+
+        circuitBreaker.recordFailure(repository, "Connection refused");
+        circuitBreaker.recordFailure(repository, "Connection refused");
+
+        // A success in between resets the count.
+        circuitBreaker.recordSuccess(repository);
+        circuitBreaker.recordFailure(repository, "Connection refused");
+        circuitBreaker.recordFailure(repository, "Connection refused");
+
+        assertTrue(circuitBreaker.allowRequest(repository));
+
+        circuitBreaker.recordFailure(repository, "Connection refused");
+
+        assertFalse(circuitBreaker.allowRequest(repository));
+        assertEquals(RemoteRepositoryStatus.State.OPEN, circuitBreaker.getStatus("storage0", "proxy").getState());
+        assertEquals(5, circuitBreaker.getStatus("storage0", "proxy").getTotalFailures());
+
+        circuitBreaker.reset("storage0", "proxy");
+
+        assertNull(circuitBreaker.getStatus("storage0", "proxy"));
+        assertTrue(circuitBreaker.allowRequest(repository));
+    }
+
+    @Test
+    public void testUnblockAfterRecovery()
+            throws Exception
+    {
+        try (ServerSocket serverSocket = new ServerSocket(0))
+        {
+            repository.getRemoteRepository().setUrl("http://localhost:" + serverSocket.getLocalPort() + "/");
+
+            for (int i = 0; i < 3; i++)
+            {
+                circuitBreaker.recordFailure(repository, "Read timed out");
+            }
+
+            assertFalse(circuitBreaker.allowRequest(repository));
+
+            circuitBreaker.probe();
+
+            // Only a single request is let through, until it has succeeded.
+            assertTrue(circuitBreaker.allowRequest(repository));
+            assertFalse(circuitBreaker.allowRequest(repository));
+
+            circuitBreaker.recordSuccess(repository);
+
+            assertTrue(circuitBreaker.allowRequest(repository));
+            assertEquals(RemoteRepositoryStatus.State.CLOSED,
+                         circuitBreaker.getStatus("storage0", "proxy").getState());
+        }
+    }
+
+    @Test
+    public void testUnresolvedTrialLetsAnotherRequestThrough()
+            throws Exception
+    {
+        try (ServerSocket serverSocket = new ServerSocket(0))
+        {
+            repository.getRemoteRepository().setUrl("http://localhost:" + serverSocket.getLocalPort() + "/");
+
+            for (int i = 0; i < 3; i++)
+            {
+                circuitBreaker.recordFailure(repository, "Read timed out");
+            }
+
+            circuitBreaker.probe();
+
+            RemoteRepositoryCircuitBreaker.Permit permit = circuitBreaker.acquirePermit(repository);
+
+            assertTrue(permit.isTrial());
+            assertNull(circuitBreaker.acquirePermit(repository));
+
+            // The trial request was served without reaching the remote repository.
+            permit.close();
+
+            permit = circuitBreaker.acquirePermit(repository);
+
+            assertTrue(permit.isTrial());
+
+            circuitBreaker.recordSuccess(repository);
+            permit.close();
+
+            assertFalse(circuitBreaker.acquirePermit(repository).isTrial());
+            assertEquals(RemoteRepositoryStatus.State.CLOSED,
+                         circuitBreaker.getStatus("storage0", "proxy").getState());
+        }
+    }
+
+    @Test
+    public void testStaleTrialIsExpired()
+            throws Exception
+    {
+        try (ServerSocket serverSocket = new ServerSocket(0))
+        {
+            repository.getRemoteRepository().setUrl("http://localhost:" + serverSocket.getLocalPort() + "/");
+            circuitBreaker.setProbeInterval(0);
+
+            for (int i = 0; i < 3; i++)
+            {
+                circuitBreaker.recordFailure(repository, "Read timed out");
+            }
+
+            circuitBreaker.probe();
+
+            // The trial request never finishes.
+            assertTrue(circuitBreaker.acquirePermit(repository).isTrial());
+            assertNull(circuitBreaker.acquirePermit(repository));
+
+            Thread.sleep(10);
+
+            circuitBreaker.probe();
+
+            assertEquals(RemoteRepositoryStatus.State.HALF_OPEN,
+                         circuitBreaker.getStatus("storage0", "proxy").getState());
+            assertTrue(circuitBreaker.acquirePermit(repository).isTrial());
+        }
+    }
+
+    @Test
+    public void testNoBlockingWithoutAutoBlocking()
+    {
+        repository.getRemoteRepository().setUrl("http://localhost:1/");
+        repository.getRemoteRepository().setAutoBlocking(false);
+
+        for (int i = 0; i < 10; i++)
+        {
+            circuitBreaker.recordFailure(repository, "Connection refused");
+        }
+
+        assertTrue(circuitBreaker.allowRequest(repository));
+    }
+
+}
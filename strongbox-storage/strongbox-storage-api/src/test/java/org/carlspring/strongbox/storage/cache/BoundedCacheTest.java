@@ -0,0 +1,45 @@
+package org.carlspring.strongbox.storage.cache;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BoundedCacheTest
+{
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted()
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>(3);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        // Make "b" the least recently used entry.
+        assertEquals("1", cache.get("a"));
+
+        cache.put("d", "4");
+
+        assertEquals(3, cache.getSize());
+        assertNull("Failed to evict the least recently used entry!", cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals("4", cache.get("d"));
+    }
+
+    @Test
+    public void testRemoveIf()
+    {
+        BoundedCache<String, String> cache = new BoundedCache<>(10);
+
+        cache.put("storage0:releases/foo", "1");
+        cache.put("storage0:snapshots/foo", "2");
+
+        cache.removeIf((key, value) -> key.startsWith("storage0:releases/"));
+
+        assertNull(cache.get("storage0:releases/foo"));
+        assertEquals("2", cache.get("storage0:snapshots/foo"));
+    }
+
+}
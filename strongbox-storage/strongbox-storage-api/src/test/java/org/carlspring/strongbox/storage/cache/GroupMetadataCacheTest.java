@@ -0,0 +1,76 @@
+package org.carlspring.strongbox.storage.cache;
+
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GroupMetadataCacheTest
+{
+
+    private static final String METADATA_PATH = "org/carlspring/strongbox/test-artifact/maven-metadata.xml";
+
+    private GroupMetadataCache cache;
+
+    private Repository group;
+
+    private Repository otherGroup;
+
+
+    @Before
+    public void setUp()
+    {
+        cache = new GroupMetadataCache();
+
+        Storage storage = new Storage("storage0");
+
+        group = createRepository(storage, "group-releases");
+        otherGroup = createRepository(storage, "group-snapshots");
+    }
+
+    @Test
+    public void testMergedMetadataIsValidForTheSameMembers()
+    {
+        byte[] contents = "<metadata/>".getBytes();
+
+        cache.put(group, METADATA_PATH, "storage0:releases=11@1000;", contents);
+
+        assertArrayEquals(contents, cache.get(group, METADATA_PATH, "storage0:releases=11@1000;"));
+        assertNull("The entry should only apply to the group it was added for!",
+                   cache.get(otherGroup, METADATA_PATH, "storage0:releases=11@1000;"));
+
+        // One of the members' copies has changed.
+        assertNull(cache.get(group, METADATA_PATH, "storage0:releases=21@2000;"));
+        assertNull(cache.get(group, METADATA_PATH, "storage0:releases=11@1000;"));
+    }
+
+    @Test
+    public void testMaxEntries()
+    {
+        cache = new GroupMetadataCache(10);
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put(group,
+                      "org/carlspring/strongbox/test-artifact-" + i + "/maven-metadata.xml",
+                      "storage0:releases=11@1000;",
+                      new byte[0]);
+        }
+
+        assertTrue("The cache exceeded its limit!", cache.getSize() <= 10);
+    }
+
+    private Repository createRepository(Storage storage,
+                                        String repositoryId)
+    {
+        Repository repository = new Repository(repositoryId);
+        repository.setStorage(storage);
+
+        return repository;
+    }
+
+}
@@ -0,0 +1,148 @@
+package org.carlspring.strongbox.storage.cache;
+
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NegativeLookupCacheTest
+{
+
+    private static final String ARTIFACT_PATH = "org/carlspring/strongbox/test-artifact/1.0/test-artifact-1.0-sources.jar";
+
+    private static final String METADATA_PATH = "org/carlspring/strongbox/test-artifact/maven-metadata.xml";
+
+    private NegativeLookupCache cache;
+
+    private Repository group;
+
+    private Repository proxy;
+
+
+    @Before
+    public void setUp()
+    {
+        cache = new NegativeLookupCache();
+
+        Storage storage = new Storage("storage0");
+
+        group = createRepository(storage, "group-releases", 60);
+        proxy = createRepository(storage, "proxied-releases", 60);
+    }
+
+    @Test
+    public void testMissingPathsAreRemembered()
+    {
+        assertFalse(cache.contains(group, ARTIFACT_PATH));
+
+        cache.put(group, ARTIFACT_PATH);
+
+        assertTrue(cache.contains(group, ARTIFACT_PATH));
+        assertFalse("The entry should only apply to the repository it was added for!",
+                    cache.contains(proxy, ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testDisabledByDefault()
+    {
+        Repository repository = createRepository(new Storage("storage0"), "releases", 0);
+
+        cache.put(repository, ARTIFACT_PATH);
+
+        assertFalse(cache.contains(repository, ARTIFACT_PATH));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testExpiry()
+            throws InterruptedException
+    {
+        Repository repository = createRepository(new Storage("storage0"), "releases", 1);
+
+        cache.put(repository, ARTIFACT_PATH);
+
+        assertTrue(cache.contains(repository, ARTIFACT_PATH));
+
+        Thread.sleep(1100L);
+
+        assertFalse("Failed to expire the entry!", cache.contains(repository, ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testEntriesExpireAfterTheMaxTtl()
+            throws InterruptedException
+    {
+        cache = new NegativeLookupCache(10, 1);
+
+        cache.put(group, ARTIFACT_PATH);
+
+        assertTrue(cache.contains(group, ARTIFACT_PATH));
+
+        Thread.sleep(1100L);
+
+        assertFalse("Failed to expire the entry after the max TTL!", cache.contains(group, ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testStoreInvalidatesPathAndParentDirectoryEntries()
+    {
+        String otherArtifactPath = "org/carlspring/strongbox/other-artifact/1.0/other-artifact-1.0.jar";
+        String siblingPath = "org/carlspring/strongbox/test-artifact/1.0/test-artifact-1.0.pom";
+
+        cache.put(group, ARTIFACT_PATH);
+        cache.put(proxy, ARTIFACT_PATH);
+        cache.put(group, METADATA_PATH);
+        cache.put(group, otherArtifactPath);
+        cache.put(proxy, siblingPath);
+
+        cache.invalidate("org/carlspring/strongbox/test-artifact/1.0/test-artifact-1.0-sources.jar");
+
+        assertFalse(cache.contains(group, ARTIFACT_PATH));
+        assertFalse(cache.contains(proxy, ARTIFACT_PATH));
+        assertFalse(cache.contains(group, METADATA_PATH));
+        assertFalse(cache.contains(proxy, siblingPath));
+        assertTrue("Entries in unrelated directories should not have been invalidated!",
+                   cache.contains(group, otherArtifactPath));
+    }
+
+    @Test
+    public void testInvalidateRepository()
+    {
+        cache.put(group, ARTIFACT_PATH);
+        cache.put(proxy, ARTIFACT_PATH);
+
+        cache.invalidate(proxy);
+
+        assertTrue(cache.contains(group, ARTIFACT_PATH));
+        assertFalse(cache.contains(proxy, ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testMaxEntries()
+    {
+        cache = new NegativeLookupCache(10);
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put(group, "org/carlspring/strongbox/test-artifact/1." + i + "/maven-metadata.xml");
+        }
+
+        assertTrue("The cache exceeded its limit!", cache.getSize() <= 10);
+    }
+
+    private Repository createRepository(Storage storage,
+                                        String repositoryId,
+                                        long negativeCacheTtl)
+    {
+        Repository repository = new Repository(repositoryId);
+        repository.setStorage(storage);
+        repository.setNegativeCacheTtl(negativeCacheTtl);
+
+        return repository;
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.carlspring.strongbox.storage.checksum;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ChecksumAttributeCacheTest
+{
+
+    public static final Path BASEDIR = Paths.get("target/test-resources/checksum-attributes");
+
+    private ChecksumAttributeCache cache;
+
+    private Path artifact;
+
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        cache = new ChecksumAttributeCache();
+
+        Files.createDirectories(BASEDIR);
+
+        artifact = BASEDIR.resolve("test-artifact-1.0.jar");
+        Files.write(artifact, "foo".getBytes());
+    }
+
+    @Test
+    public void testChecksumsAreValidForTheCurrentContents()
+            throws Exception
+    {
+        cache.put(artifact, getAttributes(), Collections.singletonMap("SHA-1", "abc"));
+
+        assertEquals("abc", cache.get(artifact, getAttributes()).get("SHA-1"));
+
+        cache.update(artifact, "MD5", "def");
+
+        Map<String, String> checksums = cache.get(artifact, getAttributes());
+
+        assertEquals("abc", checksums.get("SHA-1"));
+        assertEquals("def", checksums.get("MD5"));
+
+        // The artifact has been modified outside of the repository file system.
+        Files.write(artifact, "foobar".getBytes());
+        Files.setLastModifiedTime(artifact, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        assertNull(cache.get(artifact, getAttributes()));
+    }
+
+    @Test
+    public void testUpdateOnlyAppliesToRecordedChecksums()
+            throws Exception
+    {
+        cache.update(artifact, "SHA-1", "abc");
+
+        assertNull(cache.get(artifact, getAttributes()));
+    }
+
+    @Test
+    public void testChecksumsAreMovedWithTheArtifact()
+            throws Exception
+    {
+        Path tempArtifact = BASEDIR.resolve("test-artifact-1.0.jar.tmp");
+        Files.write(tempArtifact, "foo".getBytes());
+
+        cache.put(tempArtifact,
+                  Files.readAttributes(tempArtifact, BasicFileAttributes.class),
+                  Collections.singletonMap("SHA-1", "abc"));
+
+        Files.move(tempArtifact, artifact, StandardCopyOption.REPLACE_EXISTING);
+        cache.move(tempArtifact, artifact);
+
+        assertEquals("abc", cache.get(artifact, getAttributes()).get("SHA-1"));
+        assertNull(cache.get(tempArtifact, getAttributes()));
+    }
+
+    private BasicFileAttributes getAttributes()
+            throws Exception
+    {
+        return Files.readAttributes(artifact, BasicFileAttributes.class);
+    }
+
+}
@@ -0,0 +1,169 @@
+package org.carlspring.strongbox.storage.checksum;
+
+import org.carlspring.strongbox.client.ArtifactResolver;
+import org.carlspring.strongbox.providers.io.RepositoryFileSystem;
+import org.carlspring.strongbox.providers.io.RepositoryPath;
+import org.carlspring.strongbox.storage.ArtifactStorageException;
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import java.nio.file.FileSystems;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.MessageDigestAlgorithms;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.fail;
+
+public class RemoteChecksumValidatorTest
+{
+
+    private static final String ARTIFACT = "org/carlspring/strongbox/foo/1.0/foo-1.0.jar";
+
+    private static final String SHA1 = "0beec7b5ea3f0fdbc95d0dd47f3c5bc275da8a33";
+
+    private static final String MD5 = "acbd18db4cc2f85cedef654fccc4a4d8";
+
+    private Map<String, String> remoteChecksums;
+
+    private RemoteChecksumValidator validator;
+
+    private RemoteRepository remoteRepository;
+
+    private RepositoryPath artifactPath;
+
+    private Map<String, String> digests;
+
+
+    @Before
+    public void setUp()
+    {
+        remoteChecksums = new HashMap<>();
+
+        // The checksum files are served from the map, instead of a remote repository.
+        validator = new RemoteChecksumValidator()
+        {
+            @Override
+            protected String getRemoteChecksum(ArtifactResolver resolver,
+                                               String checksumPath)
+            {
+                return remoteChecksums.get(checksumPath);
+            }
+        };
+
+        remoteRepository = new RemoteRepository();
+        remoteRepository.setChecksumValidation(true);
+
+        Repository repository = new Repository("proxied-releases");
+        repository.setStorage(new Storage("storage0", "target/storages/storage0"));
+        repository.setRemoteRepository(remoteRepository);
+
+        RepositoryFileSystem fileSystem = new RepositoryFileSystem(repository, FileSystems.getDefault(), null)
+        {
+            @Override
+            public Set<String> getDigestAlgorithmSet()
+            {
+                return new LinkedHashSet<>(Arrays.asList(MessageDigestAlgorithms.MD5,
+                                                         MessageDigestAlgorithms.SHA_1));
+            }
+        };
+        artifactPath = fileSystem.getRootDirectory().resolve(ARTIFACT);
+
+        digests = new HashMap<>();
+        digests.put(MessageDigestAlgorithms.SHA_1, SHA1);
+        digests.put(MessageDigestAlgorithms.MD5, MD5);
+    }
+
+    @Test
+    public void testStrictPolicy()
+            throws Exception
+    {
+        remoteRepository.setChecksumPolicy("Strict");
+
+        remoteChecksums.put(ARTIFACT + ".sha1", SHA1.toUpperCase());
+        validator.validate(artifactPath, digests, null);
+
+        remoteChecksums.put(ARTIFACT + ".sha1", MD5);
+        assertRejected();
+
+        remoteChecksums.clear();
+        assertRejected();
+    }
+
+    @Test
+    public void testWarnPolicy()
+            throws Exception
+    {
+        remoteRepository.setChecksumPolicy("Warn");
+
+        assertAccepted();
+    }
+
+    @Test
+    public void testLogPolicy()
+            throws Exception
+    {
+        remoteRepository.setChecksumPolicy("Log");
+
+        assertAccepted();
+    }
+
+    @Test
+    public void testValidationDisabled()
+            throws Exception
+    {
+        remoteRepository.setChecksumPolicy("Strict");
+        remoteRepository.setChecksumValidation(false);
+
+        assertAccepted();
+    }
+
+    @Test
+    public void testFallsBackToTheNextAlgorithm()
+            throws Exception
+    {
+        remoteRepository.setChecksumPolicy("Strict");
+
+        remoteChecksums.put(ARTIFACT + ".md5", MD5);
+        validator.validate(artifactPath, digests, null);
+
+        remoteChecksums.put(ARTIFACT + ".md5", SHA1);
+        assertRejected();
+    }
+
+    /**
+     * Checks that a matching, a mismatching and a missing checksum are all accepted.
+     */
+    private void assertAccepted()
+            throws ArtifactStorageException
+    {
+        remoteChecksums.put(ARTIFACT + ".sha1", SHA1);
+        validator.validate(artifactPath, digests, null);
+
+        remoteChecksums.put(ARTIFACT + ".sha1", MD5);
+        validator.validate(artifactPath, digests, null);
+
+        remoteChecksums.clear();
+        validator.validate(artifactPath, digests, null);
+    }
+
+    private void assertRejected()
+    {
+        try
+        {
+            validator.validate(artifactPath, digests, null);
+
+            fail("Failed to reject the artifact with the checksums " + remoteChecksums + "!");
+        }
+        catch (ArtifactStorageException e)
+        {
+            // This is the expected behaviour.
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.carlspring.strongbox.storage.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RoutingRulesMatcherTest
+{
+
+    private static final String ARTIFACT_PATH = "com/artifacts/in/releases/foo/1.2.3/foo-1.2.3.jar";
+
+    private RoutingRulesMatcher matcher;
+
+    private RoutingRules routingRules;
+
+
+    @Before
+    public void setUp()
+    {
+        matcher = new RoutingRulesMatcher();
+
+        routingRules = new RoutingRules();
+        routingRules.addAcceptRule("group-releases",
+                                   createRuleSet("group-releases",
+                                                 ".*(com|org)/artifacts.in.releases.*",
+                                                 "releases", "storage1:releases-2"));
+        routingRules.addAcceptRule(RoutingRules.WILDCARD,
+                                   createRuleSet(RoutingRules.WILDCARD, ".*(com|org)/artifacts.*", "releases-3"));
+        routingRules.addDenyRule(RoutingRules.WILDCARD,
+                                 createRuleSet(RoutingRules.WILDCARD, ".*(com|org)/artifacts.denied.*", "releases"));
+    }
+
+    @Test
+    public void testAcceptRules()
+    {
+        assertEquals(Arrays.asList("releases", "storage1:releases-2"),
+                     matcher.getAcceptedRepositories(routingRules, "group-releases", ARTIFACT_PATH));
+        assertTrue(matcher.getAcceptedRepositories(routingRules, "other-group", ARTIFACT_PATH).isEmpty());
+        assertTrue(matcher.getAcceptedRepositories(routingRules, "group-releases", "org/foo/bar.jar").isEmpty());
+
+        assertEquals(Arrays.asList("releases-3"),
+                     matcher.getWildcardAcceptedRepositories(routingRules, ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testDenyRules()
+    {
+        String deniedPath = "com/artifacts/denied/foo/1.2.3/foo-1.2.3.jar";
+
+        assertTrue(matcher.rejects(routingRules, "group-releases", "releases", deniedPath));
+        assertFalse(matcher.rejects(routingRules, "group-releases", "releases-3", deniedPath));
+        assertFalse(matcher.rejects(routingRules, "group-releases", "releases", ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testRecompilation()
+    {
+        assertFalse(matcher.rejects(routingRules, "group-releases", "releases-3", ARTIFACT_PATH));
+
+        routingRules.addDenyRule("group-releases",
+                                 createRuleSet("group-releases", ".*(com|org)/artifacts.in.*", "releases-3"));
+
+        assertFalse("The rules should not have been re-compiled yet!",
+                    matcher.rejects(routingRules, "group-releases", "releases-3", ARTIFACT_PATH));
+
+        matcher.compile(routingRules);
+
+        assertTrue(matcher.rejects(routingRules, "group-releases", "releases-3", ARTIFACT_PATH));
+
+        // Replacing the rules altogether should be picked up without an explicit re-compilation.
+        assertFalse(matcher.rejects(new RoutingRules(), "group-releases", "releases-3", ARTIFACT_PATH));
+    }
+
+    @Test
+    public void testInvalidPatternsAreIgnored()
+    {
+        routingRules.addAcceptRule("group-releases", createRuleSet("group-releases", "[invalid", "releases"));
+
+        assertTrue(matcher.getAcceptedRepositories(routingRules, "group-releases", ARTIFACT_PATH).isEmpty());
+    }
+
+    private RuleSet createRuleSet(String groupRepositoryId,
+                                  String pattern,
+                                  String... repositories)
+    {
+        RoutingRule rule = new RoutingRule(pattern, new LinkedHashSet<>(Arrays.asList(repositories)));
+
+        List<RoutingRule> rules = new ArrayList<>();
+        rules.add(rule);
+
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.setGroupRepository(groupRepositoryId);
+        ruleSet.setRoutingRules(rules);
+
+        return ruleSet;
+    }
+
+}
@@ -6,6 +6,7 @@ import org.carlspring.strongbox.util.MessageDigestUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 import java.util.function.Function;
@@ -38,6 +39,7 @@ public abstract class ArtifactOutputStream
      */
     private OutputStream cacheOutputStream;
     private Function<OutputStreamFunction, ?> cacheOutputStreamTemplate = this::doWithOutputStream;
+    private boolean aborted;
 
     public ArtifactOutputStream(OutputStream source,
                                 ArtifactCoordinates coordinates)
@@ -77,12 +79,42 @@ public abstract class ArtifactOutputStream
         this.digestStringifier = digestStringifier;
     }
 
+    /**
+     * Discards the contents, instead of storing them, when the stream is closed. This has to be called when the
+     * contents could not be written in full (for example, because the upload they are read from has failed).
+     */
+    public void abort()
+    {
+        aborted = true;
+    }
+
+    public boolean isAborted()
+    {
+        return aborted;
+    }
+
+    /**
+     * @return the digests of the contents which have been written so far (the digests themselves are not reset, so
+     *         this can be called more than once)
+     */
     public Map<String, String> getDigestMap()
     {
         return getDigests().entrySet()
                            .stream()
                            .collect(Collectors.toMap(Map.Entry::getKey,
-                                                     e -> stringifyDigest(digestStringifier, e.getValue().digest())));
+                                                     e -> stringifyDigest(digestStringifier, digest(e.getValue()))));
+    }
+
+    private byte[] digest(MessageDigest messageDigest)
+    {
+        try
+        {
+            return ((MessageDigest) messageDigest.clone()).digest();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            return messageDigest.digest();
+        }
     }
 
     protected String stringifyDigest(Function<byte[], String> digestStringifier,
@@ -36,6 +36,13 @@ public class RemoteRepository
     @XmlAttribute(name = "checksum-policy")
     private String checksumPolicy;
 
+    /**
+     * Whether to warm the local cache with the parents and dependencies of the POM-s downloaded from this
+     * remote repository.
+     */
+    @XmlAttribute(name = "prefetch-dependencies")
+    private boolean prefetchDependencies;
+
 
     public RemoteRepository()
     {
@@ -111,4 +118,14 @@ public class RemoteRepository
         this.checksumPolicy = checksumPolicy;
     }
 
+    public boolean isPrefetchDependencies()
+    {
+        return prefetchDependencies;
+    }
+
+    public void setPrefetchDependencies(boolean prefetchDependencies)
+    {
+        this.prefetchDependencies = prefetchDependencies;
+    }
+
 }
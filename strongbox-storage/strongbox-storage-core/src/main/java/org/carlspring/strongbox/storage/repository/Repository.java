@@ -78,6 +78,22 @@ public class Repository
     @XmlAttribute(name = "checksum-headers-enabled")
     private boolean checksumHeadersEnabled;
 
+    /**
+     * For how long (in seconds) a failed lookup of a path in a proxy or group repository should be remembered,
+     * before the path is looked up again. A value of 0 disables the negative lookup cache for the repository.
+     */
+    @XmlAttribute(name = "negative-cache-ttl")
+    private long negativeCacheTtl;
+
+    /**
+     * The maximum number of members of a group repository to look a path up in concurrently.
+     * The member with the highest priority which contains the path is still the one the path is served from.
+     * Proxy members (and nested groups containing them) are only looked up once the members before them have missed.
+     * A value of 0, or 1, looks the members up one at a time, in order.
+     */
+    @XmlAttribute(name = "parallel-lookup-fan-out")
+    private int parallelLookupFanOut;
+
     /**
      * The per-repository proxy settings that override the overall global proxy settings.
      */
@@ -450,4 +466,24 @@ public class Repository
         this.artifactMaxSize = artifactMaxSize;
     }
 
+    public long getNegativeCacheTtl()
+    {
+        return negativeCacheTtl;
+    }
+
+    public void setNegativeCacheTtl(long negativeCacheTtl)
+    {
+        this.negativeCacheTtl = negativeCacheTtl;
+    }
+
+    public int getParallelLookupFanOut()
+    {
+        return parallelLookupFanOut;
+    }
+
+    public void setParallelLookupFanOut(int parallelLookupFanOut)
+    {
+        this.parallelLookupFanOut = parallelLookupFanOut;
+    }
+
 }
@@ -7,11 +7,18 @@ import org.carlspring.strongbox.repository.MavenRepositoryFeatures;
 import org.carlspring.strongbox.repository.MavenRepositoryManagementStrategy;
 import org.carlspring.strongbox.storage.indexing.SafeArtifactContextProducer;
 import org.carlspring.strongbox.storage.indexing.StrongboxIndexer;
+import org.carlspring.strongbox.storage.metadata.MavenMetadataCache;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.orientechnologies.orient.core.entity.OEntityManager;
 import org.apache.maven.index.ArtifactContextProducer;
@@ -38,6 +45,7 @@ import org.apache.maven.index.updater.IndexUpdater;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 @Configuration
 @ComponentScan({ "org.carlspring.strongbox.repository",
@@ -154,6 +162,46 @@ public class Maven2LayoutProviderConfig
         return new MavenPluginArtifactInfoIndexCreator();
     }
 
+    /**
+     * Used to prefetch the parents and dependencies of the POM-s downloaded by proxy repositories. Prefetches which
+     * do not fit in the queue are rejected.
+     */
+    @Bean(name = "mavenPrefetchExecutor", destroyMethod = "shutdown")
+    ExecutorService mavenPrefetchExecutor()
+    {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("maven-prefetch-");
+        threadFactory.setDaemon(true);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4,
+                                                             4,
+                                                             60L,
+                                                             TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(1000),
+                                                             threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * Adds the artifacts queued by the repository indexers to their indexes. A single thread is used, so that the
+     * batches of the different indexes don't compete with each other (or with the uploads) for the disk.
+     */
+    @Bean(name = "mavenIndexingExecutor", destroyMethod = "shutdown")
+    ScheduledExecutorService mavenIndexingExecutor()
+    {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("maven-indexer-");
+        threadFactory.setDaemon(true);
+
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Bean(name = "mavenMetadataCache")
+    MavenMetadataCache mavenMetadataCache()
+    {
+        return new MavenMetadataCache(10000);
+    }
+
     @Bean(name = "indexers")
     Map<String, AbstractIndexCreator> indexers()
     {
@@ -1,17 +1,22 @@
 package org.carlspring.strongbox.providers.layout;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
+import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.index.ArtifactInfo;
@@ -53,7 +58,8 @@ import org.springframework.stereotype.Component;
 public class Maven2LayoutProvider extends AbstractLayoutProvider<MavenArtifactCoordinates,
                                                                         MavenRepositoryFeatures,
                                                                         MavenRepositoryManagementStrategy>
-                                  implements RepositoryPathHandler
+                                  implements RepositoryPathHandler,
+                                             GroupMetadataMerger
 {
 
     private static final Logger logger = LoggerFactory.getLogger(Maven2LayoutProvider.class);
@@ -290,6 +296,11 @@ public class Maven2LayoutProvider extends AbstractLayoutProvider<MavenArtifactCo
 
                 deleteMetadataAtVersionLevel(artifactVersionPath, version);
             }
+            else if (isInSnapshotVersionDirectory(artifactVersionPath))
+            {
+                // This is a file in a snapshot version directory
+                deleteMetadataAtSnapshotVersionLevel(artifactVersionPath);
+            }
             else
             {
                 // This is at the artifact level
@@ -341,41 +352,51 @@ public class Maven2LayoutProvider extends AbstractLayoutProvider<MavenArtifactCo
         }
     }
 
-    public void deleteMetadataAtArtifactLevel(RepositoryPath artifactPath, String version)
+    private boolean isInSnapshotVersionDirectory(RepositoryPath path)
+    {
+        Path directoryName = path.getParent() != null ? path.getParent().getFileName() : null;
+
+        return directoryName != null && ArtifactUtils.isSnapshot(directoryName.toString());
+    }
+
+    /**
+     * Removes a timestamped snapshot, which has been deleted, from the metadata of its snapshot version directory.
+     */
+    public void deleteMetadataAtSnapshotVersionLevel(RepositoryPath artifactFilePath)
             throws IOException,
                    NoSuchAlgorithmException,
                    XmlPullParserException
     {
-        Metadata metadataVersionLevel = mavenMetadataManager.readMetadata(artifactPath);
-        if (metadataVersionLevel != null && metadataVersionLevel.getVersioning() != null)
+        String path = artifactFilePath.getRepositoryRelative().toString();
+        String fileName = artifactFilePath.getFileName().toString();
+        if (!ArtifactUtils.isArtifact(path) || ArtifactUtils.isChecksum(path) ||
+            fileName.startsWith(MetadataHelper.MAVEN_METADATA_XML))
         {
-            if (metadataVersionLevel.getVersioning().getVersions().contains(version))
-            {
-                metadataVersionLevel.getVersioning().getVersions().remove(version);
-                MetadataHelper.setLastUpdated(metadataVersionLevel.getVersioning());
-            }
+            return;
+        }
 
-            if (metadataVersionLevel.getVersioning().getLatest() != null &&
-                metadataVersionLevel.getVersioning().getLatest().equals(version))
-            {
-                if (metadataVersionLevel.getVersioning().getVersions() != null &&
-                    metadataVersionLevel.getVersioning().getVersions().isEmpty())
-                {
-                    metadataVersionLevel.getVersioning().setLatest(null);
-                }
-                else
-                {
-                    MetadataHelper.setLatest(metadataVersionLevel);
-                }
+        Artifact artifact = ArtifactUtils.convertPathToArtifact(path);
 
-                MetadataHelper.setLastUpdated(metadataVersionLevel.getVersioning());
-            }
+        String classifier = artifact.getClassifier() != null ? artifact.getClassifier() : "";
+        String extension = FilenameUtils.getExtension(fileName);
 
-            mavenMetadataManager.storeMetadata(artifactPath,
-                                               null,
-                                               metadataVersionLevel,
-                                               MetadataType.ARTIFACT_ROOT_LEVEL);
-        }
+        RepositoryPath artifactVersionPath = artifactFilePath.getParent();
+
+        mavenMetadataManager.removeTimestampedSnapshotVersions(artifactVersionPath.getParent(),
+                                                               artifactVersionPath.getFileName().toString(),
+                                                               v -> v.getVersion().equals(artifact.getVersion()) &&
+                                                                    v.getClassifier().equals(classifier) &&
+                                                                    v.getExtension().equals(extension));
+    }
+
+    public void deleteMetadataAtArtifactLevel(RepositoryPath artifactPath, String version)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   XmlPullParserException
+    {
+        // Only the deleted version is taken out of the metadata; the latest and release fields are worked out from
+        // the remaining versions.
+        mavenMetadataManager.removeVersion(artifactPath, version);
     }
 
     @Override
@@ -444,15 +465,52 @@ public class Maven2LayoutProvider extends AbstractLayoutProvider<MavenArtifactCo
         }
 
         String repositoryRelativePath = repositoryPath.getRepositoryRelative().toString();
-        Artifact artifact = ArtifactUtils.convertPathToArtifact(repositoryRelativePath);
 
         File storageBasedir = new File(storage.getBasedir());
         File artifactFile = new File(new File(storageBasedir, repository.getId()), repositoryRelativePath).getCanonicalFile();
 
-        indexer.addArtifactToIndex(repository.getId(), artifactFile, artifact);
+        // Don't make the upload wait for the index to be committed.
+        indexer.queueArtifact(artifactFile);
+    }
+
+    @Override
+    public boolean isMergedInGroup(String path)
+    {
+        return path.equals(MetadataHelper.MAVEN_METADATA_XML) || path.endsWith("/" + MetadataHelper.MAVEN_METADATA_XML);
+    }
+
+    @Override
+    public byte[] merge(String path,
+                       List<byte[]> contents)
+            throws IOException
+    {
+        List<Metadata> metadataList = new ArrayList<>();
+        for (byte[] content : contents)
+        {
+            try
+            {
+                metadataList.add(mavenMetadataManager.readMetadata(new ByteArrayInputStream(content)));
+            }
+            catch (XmlPullParserException e)
+            {
+                // A broken copy shouldn't make the metadata of the other members unavailable.
+                logger.error("Failed to parse a copy of " + path + ".", e);
+            }
+        }
+
+        if (metadataList.isEmpty())
+        {
+            return contents.get(0);
+        }
+
+        Metadata metadata = mavenMetadataManager.mergeMetadata(metadataList);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        mavenMetadataManager.writeMetadata(metadata, os);
+
+        return os.toByteArray();
     }
 
-    
     @Override
     public MavenRepositoryFeatures getRepositoryFeatures()
     {
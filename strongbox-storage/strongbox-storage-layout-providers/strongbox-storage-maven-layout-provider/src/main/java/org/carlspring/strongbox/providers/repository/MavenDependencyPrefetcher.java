@@ -0,0 +1,428 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.artifact.coordinates.MavenArtifactCoordinates;
+import org.carlspring.strongbox.providers.layout.LayoutProvider;
+import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
+import org.carlspring.strongbox.providers.layout.Maven2LayoutProvider;
+import org.carlspring.strongbox.providers.io.RepositoryPath;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the local cache of Maven proxy repositories which have dependency prefetching enabled: whenever a POM has
+ * been downloaded from the remote repository, the POM-s of its parent, its imported BOM-s and its direct compile
+ * and runtime dependencies are downloaded in the background, as the client is almost certainly going to ask for
+ * them next.
+ * <p>
+ * The prefetched POM-s are, in turn, prefetched for as well, which warms the cache with the rest of the dependency
+ * tree, down to a maximum depth. The number of prefetches which are either pending, or in progress, is bounded and
+ * so are the number of concurrent prefetches and the queue of the <code>mavenPrefetchExecutor</code>. The prefetches
+ * which do not fit are dropped. Prefetching never fails the request which downloaded the POM.
+ */
+@Component("mavenDependencyPrefetcher")
+public class MavenDependencyPrefetcher
+        implements ProxyRepositoryCacheListener
+{
+
+    private static final Logger logger = LoggerFactory.getLogger(MavenDependencyPrefetcher.class);
+
+    private static final Pattern PROPERTY_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+
+    public static final int DEFAULT_MAX_DEPTH = 5;
+
+    public static final int DEFAULT_MAX_PREFETCHES = 1000;
+
+    @Inject
+    private ProxyRepositoryProvider proxyRepositoryProvider;
+
+    @Inject
+    private LayoutProviderRegistry layoutProviderRegistry;
+
+    @Inject
+    @Named("mavenPrefetchExecutor")
+    private ExecutorService mavenPrefetchExecutor;
+
+    /**
+     * How many levels of the dependency tree below a POM requested by a client are prefetched.
+     */
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+
+    /**
+     * How many prefetches can be either pending, or in progress, at the same time.
+     */
+    private int maxPrefetches = DEFAULT_MAX_PREFETCHES;
+
+    /**
+     * The prefetches which are either pending, or in progress.
+     * <p>
+     * K: storageId:repositoryId:path
+     * V: the depth of the POM in the dependency tree of the POM requested by a client
+     */
+    private final ConcurrentMap<String, Integer> prefetches = new ConcurrentHashMap<>();
+
+
+    @PostConstruct
+    public void register()
+    {
+        proxyRepositoryProvider.addCacheListener(this);
+    }
+
+    @PreDestroy
+    public void unregister()
+    {
+        proxyRepositoryProvider.removeCacheListener(this);
+    }
+
+    @Override
+    public void artifactCached(Repository repository,
+                               String path)
+    {
+        RemoteRepository remoteRepository = repository.getRemoteRepository();
+        if (remoteRepository == null ||
+            !remoteRepository.isPrefetchDependencies() ||
+            !Maven2LayoutProvider.ALIAS.equals(repository.getLayout()) ||
+            !path.endsWith(".pom"))
+        {
+            return;
+        }
+
+        // The POM-s which have been downloaded by a prefetch are still registered, while they are being cached.
+        Integer depth = prefetches.get(getKey(repository, path));
+        int pomDepth = depth != null ? depth : 0;
+        if (pomDepth >= maxDepth)
+        {
+            return;
+        }
+
+        submit(repository, () -> prefetchDependencies(repository, path, pomDepth + 1));
+    }
+
+    void prefetchDependencies(Repository repository,
+                              String path,
+                              int depth)
+    {
+        Model model;
+        try
+        {
+            model = readModel(repository, path);
+        }
+        catch (Exception e)
+        {
+            logger.debug("Failed to parse " + path + ", not prefetching its dependencies.", e);
+
+            return;
+        }
+
+        for (String pomPath : getPomPaths(model))
+        {
+            String key = getKey(repository, pomPath);
+            if (prefetches.size() >= maxPrefetches)
+            {
+                logger.debug("Too many pending prefetches, skipping " + key + ".");
+
+                return;
+            }
+
+            if (prefetches.putIfAbsent(key, depth) == null)
+            {
+                if (!submit(repository, () -> prefetch(repository, pomPath, key)))
+                {
+                    prefetches.remove(key);
+                }
+            }
+        }
+    }
+
+    private void prefetch(Repository repository,
+                          String path,
+                          String key)
+    {
+        try
+        {
+            logger.debug("Prefetching " + key + "...");
+
+            fetch(repository, path);
+        }
+        catch (Exception e)
+        {
+            logger.debug("Failed to prefetch " + key + ".", e);
+        }
+        finally
+        {
+            prefetches.remove(key);
+        }
+    }
+
+    /**
+     * Downloads the artifact into the local cache, unless it is already there.
+     */
+    void fetch(Repository repository,
+               String path)
+            throws Exception
+    {
+        if (Files.exists(resolve(repository, path)))
+        {
+            return;
+        }
+
+        // Reading the artifact makes sure it has been completely downloaded, before the next prefetch starts.
+        try (InputStream is = proxyRepositoryProvider.getInputStream(repository.getStorage().getId(),
+                                                                     repository.getId(),
+                                                                     path))
+        {
+            if (is != null)
+            {
+                byte[] bytes = new byte[4096];
+                //noinspection StatementWithEmptyBody
+                while (is.read(bytes) != -1)
+                {
+                }
+            }
+        }
+    }
+
+    Model readModel(Repository repository,
+                    String path)
+            throws Exception
+    {
+        try (InputStream is = Files.newInputStream(resolve(repository, path).getTarget()))
+        {
+            return new MavenXpp3Reader().read(is, false);
+        }
+    }
+
+    void execute(Runnable task)
+    {
+        mavenPrefetchExecutor.execute(task);
+    }
+
+    private boolean submit(Repository repository,
+                           Runnable task)
+    {
+        try
+        {
+            execute(task);
+
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.debug("Too many pending prefetches for " + repository.getStorage().getId() + ":" +
+                         repository.getId() + ", skipping.");
+
+            return false;
+        }
+    }
+
+    /**
+     * @return the paths of the POM-s of the parent, the imported BOM-s and the direct compile and runtime
+     *         dependencies, which could be determined from the model itself
+     */
+    Set<String> getPomPaths(Model model)
+    {
+        Map<String, String> properties = getProperties(model);
+
+        Set<String> paths = new LinkedHashSet<>();
+
+        Parent parent = model.getParent();
+        if (parent != null)
+        {
+            addPomPath(paths, parent.getGroupId(), parent.getArtifactId(), parent.getVersion(), properties);
+        }
+
+        Map<String, String> managedVersions = new HashMap<>();
+        if (model.getDependencyManagement() != null)
+        {
+            for (Dependency dependency : model.getDependencyManagement().getDependencies())
+            {
+                if ("import".equals(dependency.getScope()) && "pom".equals(dependency.getType()))
+                {
+                    addPomPath(paths,
+                               dependency.getGroupId(),
+                               dependency.getArtifactId(),
+                               dependency.getVersion(),
+                               properties);
+                }
+                else if (dependency.getVersion() != null)
+                {
+                    managedVersions.put(interpolate(dependency.getManagementKey(), properties),
+                                        dependency.getVersion());
+                }
+            }
+        }
+
+        for (Dependency dependency : model.getDependencies())
+        {
+            String scope = dependency.getScope();
+            if (dependency.isOptional() || (scope != null && !"compile".equals(scope) && !"runtime".equals(scope)))
+            {
+                continue;
+            }
+
+            String version = dependency.getVersion() != null ?
+                             dependency.getVersion() :
+                             managedVersions.get(interpolate(dependency.getManagementKey(), properties));
+
+            addPomPath(paths, dependency.getGroupId(), dependency.getArtifactId(), version, properties);
+        }
+
+        return paths;
+    }
+
+    private void addPomPath(Set<String> paths,
+                            String groupId,
+                            String artifactId,
+                            String version,
+                            Map<String, String> properties)
+    {
+        groupId = interpolate(groupId, properties);
+        artifactId = interpolate(artifactId, properties);
+        version = interpolate(version, properties);
+
+        if (groupId == null || artifactId == null || version == null)
+        {
+            return;
+        }
+
+        // Version ranges and snapshots can only be resolved through the metadata.
+        if (version.startsWith("[") || version.startsWith("(") || version.endsWith("SNAPSHOT"))
+        {
+            return;
+        }
+
+        paths.add(new MavenArtifactCoordinates(groupId, artifactId, version, null, "pom").toPath());
+    }
+
+    private Map<String, String> getProperties(Model model)
+    {
+        Map<String, String> properties = new HashMap<>();
+
+        for (String name : model.getProperties().stringPropertyNames())
+        {
+            properties.put(name, model.getProperties().getProperty(name));
+        }
+
+        Parent parent = model.getParent();
+        String groupId = model.getGroupId() != null ? model.getGroupId() : (parent != null ? parent.getGroupId() : null);
+        String version = model.getVersion() != null ? model.getVersion() : (parent != null ? parent.getVersion() : null);
+
+        if (groupId != null)
+        {
+            properties.put("project.groupId", groupId);
+            properties.put("pom.groupId", groupId);
+        }
+        if (version != null)
+        {
+            properties.put("project.version", version);
+            properties.put("pom.version", version);
+            properties.put("version", version);
+        }
+        if (parent != null && parent.getVersion() != null)
+        {
+            properties.put("project.parent.version", parent.getVersion());
+            properties.put("parent.version", parent.getVersion());
+        }
+
+        return properties;
+    }
+
+    /**
+     * @return the value with the properties which are defined in the model resolved, or <code>null</code>, if it
+     *         refers to properties which are not
+     */
+    private String interpolate(String value,
+                               Map<String, String> properties)
+    {
+        if (value == null || !value.contains("${"))
+        {
+            return value;
+        }
+
+        StringBuffer sb = new StringBuffer();
+
+        Matcher matcher = PROPERTY_PATTERN.matcher(value);
+        while (matcher.find())
+        {
+            String property = properties.get(matcher.group(1));
+            if (property == null || property.contains("${"))
+            {
+                return null;
+            }
+
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(property));
+        }
+        matcher.appendTail(sb);
+
+        return sb.toString();
+    }
+
+    private RepositoryPath resolve(Repository repository,
+                                   String path)
+            throws IOException
+    {
+        LayoutProvider layoutProvider = layoutProviderRegistry.getProvider(repository.getLayout());
+
+        return layoutProvider.resolve(repository).resolve(path);
+    }
+
+    private String getKey(Repository repository,
+                          String path)
+    {
+        return repository.getStorage().getId() + ":" + repository.getId() + ":" + path;
+    }
+
+    /**
+     * @return the number of prefetches which are either pending, or in progress
+     */
+    int getPrefetchCount()
+    {
+        return prefetches.size();
+    }
+
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth)
+    {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxPrefetches()
+    {
+        return maxPrefetches;
+    }
+
+    public void setMaxPrefetches(int maxPrefetches)
+    {
+        this.maxPrefetches = maxPrefetches;
+    }
+
+}
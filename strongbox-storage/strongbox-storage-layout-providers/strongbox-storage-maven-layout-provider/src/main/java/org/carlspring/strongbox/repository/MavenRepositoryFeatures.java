@@ -144,6 +144,9 @@ public class MavenRepositoryFeatures
                 throw new ArtifactStorageException("Target repository not found!");
             }
 
+            sourceIndex.flush();
+            targetIndex.flush();
+
             targetIndex.getIndexingContext().merge(FSDirectory.open(sourceIndex.getIndexDir().toPath()));
         }
         catch (IOException e)
@@ -168,6 +171,8 @@ public class MavenRepositoryFeatures
                                            repositoryIndexManager.getIndexes().keySet());
         }
 
+        indexer.flush();
+
         IndexingContext context = indexer.getIndexingContext();
         final IndexSearcher indexSearcher = context.acquireIndexSearcher();
         try
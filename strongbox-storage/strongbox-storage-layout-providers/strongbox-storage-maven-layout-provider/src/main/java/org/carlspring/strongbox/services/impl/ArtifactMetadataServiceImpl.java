@@ -6,7 +6,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
-import java.util.Iterator;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -14,7 +13,6 @@ import javax.inject.Inject;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
-import org.apache.maven.artifact.repository.metadata.Versioning;
 import org.carlspring.maven.commons.util.ArtifactUtils;
 import org.carlspring.strongbox.artifact.locator.ArtifactDirectoryLocator;
 import org.carlspring.strongbox.configuration.Configuration;
@@ -157,11 +155,18 @@ public class ArtifactMetadataServiceImpl
 
         Path artifactBasePath = Paths.get(repository.getBasedir(), artifactPath);
 
-        Metadata metadata = getMetadata(artifactBasePath.toAbsolutePath().toString());
-
-        addVersion(metadata, version);
+        Artifact artifact = ArtifactUtils.convertPathToArtifact(artifactPath);
 
-        mavenMetadataManager.storeMetadata(artifactBasePath, version, metadata, metadataType);
+        // Only the existing metadata is updated, instead of collecting all the versions of the artifact again.
+        if (!mavenMetadataManager.addVersion(artifactBasePath,
+                                             artifact.getGroupId(),
+                                             artifact.getArtifactId(),
+                                             version))
+        {
+            // No need to throw an exception here.
+            // Logging the error should suffice.
+            logger.error("Version " + version + " already exists in the metadata file.");
+        }
     }
 
     @Override
@@ -201,23 +206,16 @@ public class ArtifactMetadataServiceImpl
         Storage storage = getConfiguration().getStorage(storageId);
         Repository repository = storage.getRepository(repositoryId);
 
-        String snapshot = ArtifactUtils.getSnapshotBaseVersion(version);
-
         Path artifactBasePath = Paths.get(repository.getBasedir(), artifactPath);
 
         Artifact artifact = ArtifactUtils.convertPathToArtifact(artifactPath);
 
-        Metadata snapshotMetadata = mavenMetadataManager.generateSnapshotVersioningMetadata(artifactBasePath,
-                                                                                            artifact,
-                                                                                            snapshot,
-                                                                                            false);
-
-        addTimestampedSnapshotVersion(snapshotMetadata, version, classifier, extension);
-
-        mavenMetadataManager.storeMetadata(artifactBasePath,
-                                           snapshot,
-                                           snapshotMetadata,
-                                           MetadataType.SNAPSHOT_VERSION_LEVEL);
+        mavenMetadataManager.addTimestampedSnapshotVersion(artifactBasePath,
+                                                           artifact.getGroupId(),
+                                                           artifact.getArtifactId(),
+                                                           version,
+                                                           classifier,
+                                                           extension);
     }
 
     @Override
@@ -256,29 +254,9 @@ public class ArtifactMetadataServiceImpl
 
         Path artifactBasePath = Paths.get(repository.getBasedir(), artifactPath);
 
-        Metadata metadata = getMetadata(artifactBasePath.toAbsolutePath().toString());
-        Versioning versioning = metadata.getVersioning();
-
-        if (ArtifactUtils.isSnapshot(version))
-        {
-            Path snapshotBasePath = Paths.get(artifactBasePath + "/" + ArtifactUtils.getSnapshotBaseVersion(version));
-
-            Artifact artifact = ArtifactUtils.convertPathToArtifact(artifactPath);
-
-            mavenMetadataManager.generateSnapshotVersioningMetadata(snapshotBasePath, artifact, version, true);
-        }
-
-        // Update the latest field
-        MetadataHelper.setLatest(metadata, version);
-        // Update the release field
-        MetadataHelper.setRelease(metadata, version);
-        // Update the lastUpdated field
-        MetadataHelper.setLastUpdated(metadata.getVersioning());
-
-        // Remove the version
-        versioning.removeVersion(version);
-
-        mavenMetadataManager.storeMetadata(artifactBasePath, version, metadata, metadataType);
+        // The latest and release fields are worked out from the remaining versions in the metadata, so none of the
+        // version directories have to be looked at.
+        mavenMetadataManager.removeVersion(artifactBasePath, version);
     }
 
     @Override
@@ -296,40 +274,21 @@ public class ArtifactMetadataServiceImpl
 
         Path artifactBasePath = Paths.get(repository.getBasedir(), artifactPath);
 
-        Artifact artifact = ArtifactUtils.convertPathToArtifact(artifactPath);
-
-        Metadata snapshotMetadata = mavenMetadataManager.generateSnapshotVersioningMetadata(artifactBasePath,
-                                                                                            artifact,
-                                                                                            snapshot,
-                                                                                            false);
-
-        List<SnapshotVersion> snapshotVersions = snapshotMetadata.getVersioning().getSnapshotVersions();
-        for (Iterator<SnapshotVersion> iterator = snapshotVersions.iterator(); iterator.hasNext(); )
-        {
-            SnapshotVersion snapshotVersion = iterator.next();
-            if (snapshotVersion.getVersion().equals(version) &&
-                (classifier == null || snapshotVersion.getClassifier().equals(classifier)))
+        mavenMetadataManager.removeTimestampedSnapshotVersions(artifactBasePath, snapshot, snapshotVersion -> {
+            if (!snapshotVersion.getVersion().equals(version) ||
+                (classifier != null && !snapshotVersion.getClassifier().equals(classifier)))
             {
-                iterator.remove();
-
-                logger.debug("Removed timestamped SNAPSHOT (" + version +
-                             (classifier != null ? ":" + classifier :
-                              (snapshotVersion.getClassifier() != null && !snapshotVersion.getClassifier().equals("") ?
-                               ":" + snapshotVersion.getClassifier() + ":" : ":") +
-                              snapshotVersion.getExtension()) + ") from metadata.");
+                return false;
             }
-        }
-
-        // Set the snapshot mapping fields (timestamp + buildNumber)
-        MetadataHelper.setupSnapshotVersioning(snapshotMetadata.getVersioning());
 
-        // Update the lastUpdated field
-        MetadataHelper.setLastUpdated(snapshotMetadata.getVersioning());
+            logger.debug("Removed timestamped SNAPSHOT (" + version +
+                         (classifier != null ? ":" + classifier :
+                          (snapshotVersion.getClassifier() != null && !snapshotVersion.getClassifier().equals("") ?
+                           ":" + snapshotVersion.getClassifier() + ":" : ":") +
+                          snapshotVersion.getExtension()) + ") from metadata.");
 
-        mavenMetadataManager.storeMetadata(artifactBasePath,
-                                           snapshot,
-                                           snapshotMetadata,
-                                           MetadataType.SNAPSHOT_VERSION_LEVEL);
+            return true;
+        });
     }
 
     @Override
@@ -355,17 +314,7 @@ public class ArtifactMetadataServiceImpl
                                            .toString();
             Path path = repositoryPath.getParent();
 
-            Metadata metadata = mavenMetadataManager.readMetadata(path);
-            if (metadata != null && metadata.getVersioning() != null &&
-                metadata.getVersioning()
-                        .getVersions()
-                        .contains(version))
-            {
-                metadata.getVersioning()
-                        .getVersions()
-                        .remove(version);
-                mavenMetadataManager.storeMetadata(path, null, metadata, MetadataType.ARTIFACT_ROOT_LEVEL);
-            }
+            mavenMetadataManager.removeVersion(path, version);
         }
         catch (IOException | NoSuchAlgorithmException | XmlPullParserException e)
         {
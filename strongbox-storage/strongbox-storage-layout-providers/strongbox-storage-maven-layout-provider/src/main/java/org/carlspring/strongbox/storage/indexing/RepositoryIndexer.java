@@ -7,6 +7,11 @@ import org.carlspring.strongbox.storage.search.SearchResult;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
@@ -38,6 +43,17 @@ public class RepositoryIndexer
 
     private static final WhitespaceAnalyzer luceneAnalyzer = new WhitespaceAnalyzer();
 
+    public static final long DEFAULT_INDEXING_DELAY = 1000L;
+
+    public static final int DEFAULT_INDEXING_BATCH_SIZE = 500;
+
+    public static final int DEFAULT_MAX_PENDING_ARTIFACTS = 10 * DEFAULT_INDEXING_BATCH_SIZE;
+
+    /**
+     * The number of times a queued artifact is tried to be added to the index, before it is given up on.
+     */
+    public static final int MAX_INDEXING_ATTEMPTS = 3;
+
     private Indexer indexer;
 
     private Scanner scanner;
@@ -62,6 +78,43 @@ public class RepositoryIndexer
 
     private String contextId;
 
+    /**
+     * The artifact files which have been queued for indexing, but haven't been added to the index yet.
+     */
+    private final BlockingQueue<File> pendingArtifacts = new LinkedBlockingQueue<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final AtomicBoolean batchFlushScheduled = new AtomicBoolean();
+
+    /**
+     * The number of failed attempts to add the artifacts, which have been queued again, to the index.
+     * This is guarded by the lock of the indexer (see {@link #flush()}).
+     */
+    private final Map<File, Integer> failedAttempts = new HashMap<>();
+
+    /**
+     * Applies the queued artifacts to the index in the background. If it is not set, the artifacts are added to the
+     * index as soon as they are queued.
+     */
+    private ScheduledExecutorService indexingExecutor;
+
+    /**
+     * The maximum time (in milliseconds) for which queued artifacts can be missing from the index.
+     */
+    private long indexingDelay = DEFAULT_INDEXING_DELAY;
+
+    /**
+     * The number of queued artifacts, which causes them to be added to the index without waiting for the delay.
+     */
+    private int indexingBatchSize = DEFAULT_INDEXING_BATCH_SIZE;
+
+    /**
+     * The number of queued artifacts, at which the background indexing is considered to have fallen behind, so that
+     * the callers queueing more artifacts add the pending ones to the index themselves.
+     */
+    private int maxPendingArtifacts = DEFAULT_MAX_PENDING_ARTIFACTS;
+
 
     public RepositoryIndexer(String contextId)
     {
@@ -93,9 +146,131 @@ public class RepositoryIndexer
         }
     }
 
+    /**
+     * Queues an artifact to be added to the index. The queued artifacts are added in batches, (at the latest) after
+     * the indexing delay, so that they share a single commit of the index. Use {@link #flush()}, if the artifact has
+     * to be in the index right away. If {@link #getMaxPendingArtifacts()} artifacts are already pending, they are
+     * added to the index by the caller.
+     */
+    public void queueArtifact(File artifactFile)
+    {
+        pendingArtifacts.add(artifactFile);
+
+        if (indexingExecutor == null || pendingArtifacts.size() >= maxPendingArtifacts)
+        {
+            flush();
+        }
+        else if (pendingArtifacts.size() >= indexingBatchSize)
+        {
+            // A single flush is submitted for a full batch, however many artifacts are queued before it runs.
+            if (batchFlushScheduled.compareAndSet(false, true))
+            {
+                indexingExecutor.execute(this::flush);
+            }
+        }
+        else
+        {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush()
+    {
+        if (indexingExecutor != null && flushScheduled.compareAndSet(false, true))
+        {
+            indexingExecutor.schedule(this::flush, indexingDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds the queued artifacts to the index. The artifacts which can't be read are skipped. If the index can't be
+     * updated, the artifacts are queued again, unless they have already failed {@link #MAX_INDEXING_ATTEMPTS} times.
+     */
+    public synchronized void flush()
+    {
+        flushScheduled.set(false);
+        batchFlushScheduled.set(false);
+
+        List<File> artifactFiles = new ArrayList<>();
+        pendingArtifacts.drainTo(artifactFiles);
+
+        if (artifactFiles.isEmpty())
+        {
+            return;
+        }
+
+        logger.debug("Adding {} queued artifact(s) to {}...", artifactFiles.size(), contextId);
+
+        List<File> indexedFiles = new ArrayList<>(artifactFiles.size());
+        List<ArtifactContext> artifactContexts = new ArrayList<>(artifactFiles.size());
+        for (File artifactFile : artifactFiles)
+        {
+            try
+            {
+                ArtifactContext artifactContext = artifactContextProducer.getArtifactContext(indexingContext,
+                                                                                             artifactFile);
+                if (artifactContext != null)
+                {
+                    indexedFiles.add(artifactFile);
+                    artifactContexts.add(artifactContext);
+                }
+            }
+            catch (Exception e)
+            {
+                logger.warn("Unable to add " + artifactFile + " to index " + contextId + ", skipping it.", e);
+
+                failedAttempts.remove(artifactFile);
+            }
+        }
+
+        if (artifactContexts.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            getIndexer().addArtifactsToIndex(artifactContexts, indexingContext);
+
+            failedAttempts.keySet().removeAll(indexedFiles);
+        }
+        catch (Exception e)
+        {
+            logger.error("Unable to add " + artifactContexts.size() + " queued artifact(s) to index " + contextId +
+                         "!", e);
+
+            requeue(indexedFiles);
+        }
+    }
+
+    private void requeue(List<File> artifactFiles)
+    {
+        for (File artifactFile : artifactFiles)
+        {
+            int attempts = failedAttempts.merge(artifactFile, 1, Integer::sum);
+            if (attempts < MAX_INDEXING_ATTEMPTS)
+            {
+                pendingArtifacts.add(artifactFile);
+            }
+            else
+            {
+                logger.error("Giving up on adding " + artifactFile + " to index " + contextId + " after " +
+                             attempts + " attempts.");
+
+                failedAttempts.remove(artifactFile);
+            }
+        }
+
+        // Without an executor, the artifacts are retried with the next flush.
+        scheduleFlush();
+    }
+
     public void delete(final Collection<ArtifactInfo> artifactInfos)
             throws IOException
     {
+        // The artifacts being deleted may still be queued.
+        flush();
+
         final List<ArtifactContext> delete = new ArrayList<>();
         for (final ArtifactInfo artifactInfo : artifactInfos)
         {
@@ -294,12 +469,16 @@ public class RepositoryIndexer
     public void close()
             throws IOException
     {
+        flush();
+
         indexer.closeIndexingContext(indexingContext, false);
     }
 
     public void close(boolean deleteFiles)
             throws IOException
     {
+        flush();
+
         indexingContext.close(deleteFiles);
     }
 
@@ -413,6 +592,46 @@ public class RepositoryIndexer
         this.configuration = configuration;
     }
 
+    public ScheduledExecutorService getIndexingExecutor()
+    {
+        return indexingExecutor;
+    }
+
+    public void setIndexingExecutor(ScheduledExecutorService indexingExecutor)
+    {
+        this.indexingExecutor = indexingExecutor;
+    }
+
+    public long getIndexingDelay()
+    {
+        return indexingDelay;
+    }
+
+    public void setIndexingDelay(long indexingDelay)
+    {
+        this.indexingDelay = indexingDelay;
+    }
+
+    public int getIndexingBatchSize()
+    {
+        return indexingBatchSize;
+    }
+
+    public void setIndexingBatchSize(int indexingBatchSize)
+    {
+        this.indexingBatchSize = indexingBatchSize;
+    }
+
+    public int getMaxPendingArtifacts()
+    {
+        return maxPendingArtifacts;
+    }
+
+    public void setMaxPendingArtifacts(int maxPendingArtifacts)
+    {
+        this.maxPendingArtifacts = maxPendingArtifacts;
+    }
+
     public String getContextId()
     {
         return contextId;
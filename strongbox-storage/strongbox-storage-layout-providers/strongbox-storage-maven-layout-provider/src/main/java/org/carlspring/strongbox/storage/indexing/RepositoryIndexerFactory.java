@@ -6,9 +6,11 @@ import org.carlspring.strongbox.repository.RepositoryInitializationException;
 import org.carlspring.strongbox.services.ArtifactIndexesService;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.maven.index.ArtifactContextProducer;
 import org.apache.maven.index.Indexer;
@@ -36,6 +38,10 @@ public class RepositoryIndexerFactory
     @Inject
     private ArtifactContextProducer artifactContextProducer;
 
+    @Inject
+    @Named("mavenIndexingExecutor")
+    private ScheduledExecutorService indexingExecutor;
+
     private Configuration configuration;
 
 
@@ -76,6 +82,7 @@ public class RepositoryIndexerFactory
         repositoryIndexer.setScanner(indexerConfiguration.getScanner());
         repositoryIndexer.setConfiguration(configuration);
         repositoryIndexer.setArtifactContextProducer(artifactContextProducer);
+        repositoryIndexer.setIndexingExecutor(indexingExecutor);
 
         return repositoryIndexer;
     }
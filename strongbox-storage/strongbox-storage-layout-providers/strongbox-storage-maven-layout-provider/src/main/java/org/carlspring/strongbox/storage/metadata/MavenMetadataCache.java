@@ -0,0 +1,128 @@
+package org.carlspring.strongbox.storage.metadata;
+
+import org.carlspring.strongbox.storage.cache.BoundedCache;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+
+/**
+ * Keeps the parsed contents of the <code>maven-metadata.xml</code> files, so that they don't have to be parsed on
+ * every read.
+ * <p>
+ * An entry is only valid for as long as the size and the last modified time of its file stay the same.
+ * {@link MavenMetadataManager} updates the entries when it writes metadata files. Each caller gets its own copy of
+ * the metadata, so the copies can be modified freely.
+ */
+public class MavenMetadataCache
+{
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * K: the absolute path of the metadata file
+     * V: the parsed metadata, as of the time the file was last modified
+     */
+    private final BoundedCache<Path, Entry> entries;
+
+
+    public MavenMetadataCache()
+    {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of metadata files to keep
+     */
+    public MavenMetadataCache(int maxEntries)
+    {
+        entries = new BoundedCache<>(maxEntries);
+    }
+
+    /**
+     * @return a copy of the metadata, or <code>null</code>, if it hasn't been parsed for the current contents of the
+     *         file
+     */
+    public Metadata get(Path metadataFile,
+                        BasicFileAttributes attributes)
+    {
+        Path key = getKey(metadataFile);
+
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (!entry.matches(attributes))
+        {
+            entries.remove(key, entry);
+
+            return null;
+        }
+
+        return entry.metadata.clone();
+    }
+
+    public void put(Path metadataFile,
+                    BasicFileAttributes attributes,
+                    Metadata metadata)
+    {
+        entries.put(getKey(metadataFile), new Entry(attributes, metadata.clone()));
+    }
+
+    public void invalidate(Path metadataFile)
+    {
+        entries.remove(getKey(metadataFile));
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * The metadata files may be referred to via the repository file system, or the default one.
+     */
+    private Path getKey(Path metadataFile)
+    {
+        return metadataFile.toFile().getAbsoluteFile().toPath().normalize();
+    }
+
+    public int getMaxEntries()
+    {
+        return entries.getMaxEntries();
+    }
+
+    public long getSize()
+    {
+        return entries.getSize();
+    }
+
+    private static class Entry
+    {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final Metadata metadata;
+
+
+        Entry(BasicFileAttributes attributes,
+              Metadata metadata)
+        {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.metadata = metadata;
+        }
+
+        boolean matches(BasicFileAttributes attributes)
+        {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+
+    }
+
+}
@@ -4,6 +4,7 @@ import org.carlspring.commons.io.MultipleDigestOutputStream;
 import org.carlspring.maven.commons.util.ArtifactUtils;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
+import org.carlspring.strongbox.providers.io.StagedOutputStream;
 import org.carlspring.strongbox.providers.layout.LayoutProvider;
 import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
 import org.carlspring.strongbox.providers.storage.StorageProvider;
@@ -19,7 +20,6 @@ import org.carlspring.strongbox.storage.repository.UnknownRepositoryTypeExceptio
 import javax.inject.Inject;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -27,10 +27,12 @@ import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.metadata.Metadata;
@@ -57,7 +59,17 @@ public class MavenMetadataManager
 
     private static final Logger logger = LoggerFactory.getLogger(MavenMetadataManager.class);
 
-    private ReentrantLock lock = new ReentrantLock();
+    /**
+     * The number of locks the metadata writes are spread across.
+     */
+    private static final int LOCK_STRIPES = 256;
+
+    /**
+     * The metadata writes are locked per metadata file (which is per groupId/artifactId, per snapshot version
+     * directory, or per groupId for plugin metadata), so that writes to unrelated metadata files can go ahead in
+     * parallel. Each metadata file is guarded by one of these locks, picked by the hash of its path.
+     */
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
 
     @Inject
     private LayoutProviderRegistry layoutProviderRegistry;
@@ -65,9 +77,23 @@ public class MavenMetadataManager
     @Inject
     protected StorageProviderRegistry storageProviderRegistry;
 
+    @Inject
+    private MavenMetadataCache mavenMetadataCache;
+
 
     public MavenMetadataManager()
     {
+        for (int i = 0; i < locks.length; i++)
+        {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private ReentrantLock getLock(File metadataFile)
+    {
+        int hash = metadataFile.getAbsoluteFile().toPath().normalize().hashCode();
+
+        return locks[(hash & Integer.MAX_VALUE) % locks.length];
     }
 
     public Metadata readMetadata(Repository repository, Artifact artifact)
@@ -113,13 +139,25 @@ public class MavenMetadataManager
             throws IOException, XmlPullParserException
     {
         Path metadataFile = MetadataHelper.getMetadataFile(artifactBasePath);
-        Metadata metadata = null;
+        BasicFileAttributes attributes = Files.readAttributes(metadataFile.toFile().toPath(), BasicFileAttributes.class);
+
+        // The file is only parsed, if it has changed since it was last read, or written.
+        Metadata metadata = mavenMetadataCache.get(metadataFile, attributes);
+        if (metadata != null)
+        {
+            return metadata;
+        }
 
         try (InputStream is = Files.newInputStream(metadataFile))
         {
             metadata = readMetadata(is);
         }
 
+        if (metadata != null)
+        {
+            mavenMetadataCache.put(metadataFile, attributes, metadata);
+        }
+
         return metadata;
     }
 
@@ -156,26 +194,38 @@ public class MavenMetadataManager
     {
         File metadataFile = MetadataHelper.getMetadataFile(metadataBasePath, version, metadataType);
 
+        StagedOutputStream stagedOutputStream = null;
         OutputStream os = null;
         Writer writer = null;
 
+        ReentrantLock lock = getLock(metadataFile);
+        lock.lock();
         try
         {
-            lock.lock();
-
-            if (metadataFile.exists())
-            {
-                //noinspection ResultOfMethodCallIgnored
-                metadataFile.delete();
-            }
-
-            os = new MultipleDigestOutputStream(metadataFile, new FileOutputStream(metadataFile));
+            // The metadata is written next to the existing file and then renamed over it, so that readers never see
+            // a missing, or a partially written file.
+            stagedOutputStream = new StagedOutputStream(metadataFile.toPath());
+            os = new MultipleDigestOutputStream(metadataFile, stagedOutputStream);
 
             writer = WriterFactory.newXmlWriter(os);
             MetadataXpp3Writer mappingWriter = new MetadataXpp3Writer();
             mappingWriter.write(writer, metadata);
 
             os.flush();
+            writer.close();
+
+            mavenMetadataCache.put(metadataFile.toPath(),
+                                   Files.readAttributes(metadataFile.toPath(), BasicFileAttributes.class),
+                                   metadata);
+        }
+        catch (IOException | NoSuchAlgorithmException | RuntimeException e)
+        {
+            if (stagedOutputStream != null)
+            {
+                stagedOutputStream.abort();
+            }
+
+            throw e;
         }
         finally
         {
@@ -183,11 +233,294 @@ public class MavenMetadataManager
 
             ResourceCloser.close(writer, logger);
             ResourceCloser.close(os, logger);
+            ResourceCloser.close(stagedOutputStream, logger);
         }
     }
 
+    public void writeMetadata(Metadata metadata,
+                              OutputStream os)
+            throws IOException
+    {
+        Writer writer = WriterFactory.newXmlWriter(os);
+
+        MetadataXpp3Writer mappingWriter = new MetadataXpp3Writer();
+        mappingWriter.write(writer, metadata);
+
+        writer.flush();
+    }
+
+    /**
+     * Adds a version to the artifact level metadata file, creating the file, if it doesn't exist yet.
+     * <p>
+     * Only the existing metadata is updated, so this doesn't depend on the number of versions the artifact already
+     * has. The <code>latest</code> and <code>release</code> fields are worked out from the listed versions.
+     *
+     * @return <code>true</code>, if the version was added, or <code>false</code>, if it was already listed
+     */
+    public boolean addVersion(Path artifactBasePath,
+                              String groupId,
+                              String artifactId,
+                              String version)
+            throws IOException,
+                   XmlPullParserException,
+                   NoSuchAlgorithmException
+    {
+        File metadataFile = MetadataHelper.getArtifactMetadataFile(artifactBasePath);
+
+        ReentrantLock lock = getLock(metadataFile);
+        lock.lock();
+        try
+        {
+            Metadata metadata;
+            if (metadataFile.exists())
+            {
+                metadata = readMetadata(artifactBasePath);
+            }
+            else
+            {
+                metadata = new Metadata();
+                metadata.setGroupId(groupId);
+                metadata.setArtifactId(artifactId);
+            }
+
+            if (metadata.getVersioning() == null)
+            {
+                metadata.setVersioning(new Versioning());
+            }
+
+            Versioning versioning = metadata.getVersioning();
+            if (versioning.getVersions().contains(version))
+            {
+                return false;
+            }
+
+            versioning.addVersion(version);
+
+            updateVersioning(versioning);
+
+            storeMetadata(artifactBasePath, null, metadata, MetadataType.ARTIFACT_ROOT_LEVEL);
+
+            logger.debug("Added version " + version + " to " + metadataFile + ".");
+
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a version from the artifact level metadata file, if it exists.
+     * <p>
+     * Only the existing metadata is updated, so this doesn't depend on the number of versions the artifact has. The
+     * <code>latest</code> and <code>release</code> fields are worked out from the remaining versions.
+     *
+     * @return <code>true</code>, if the version was removed, or <code>false</code>, if it wasn't listed
+     */
+    public boolean removeVersion(Path artifactBasePath,
+                                 String version)
+            throws IOException,
+                   XmlPullParserException,
+                   NoSuchAlgorithmException
+    {
+        File metadataFile = MetadataHelper.getArtifactMetadataFile(artifactBasePath);
+
+        ReentrantLock lock = getLock(metadataFile);
+        lock.lock();
+        try
+        {
+            if (!metadataFile.exists())
+            {
+                return false;
+            }
+
+            Metadata metadata = readMetadata(artifactBasePath);
+
+            Versioning versioning = metadata.getVersioning();
+            if (versioning == null || !versioning.getVersions().contains(version))
+            {
+                return false;
+            }
+
+            versioning.removeVersion(version);
+
+            updateVersioning(versioning);
+
+            storeMetadata(artifactBasePath, null, metadata, MetadataType.ARTIFACT_ROOT_LEVEL);
+
+            logger.debug("Removed version " + version + " from " + metadataFile + ".");
+
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a timestamped snapshot to the metadata file of its snapshot version directory, creating the file, if it
+     * doesn't exist yet.
+     *
+     * @return <code>true</code>, if the timestamped snapshot was added, or <code>false</code>, if it was already
+     *         listed
+     */
+    public boolean addTimestampedSnapshotVersion(Path artifactBasePath,
+                                                 String groupId,
+                                                 String artifactId,
+                                                 String version,
+                                                 String classifier,
+                                                 String extension)
+            throws IOException,
+                   XmlPullParserException,
+                   NoSuchAlgorithmException
+    {
+        String snapshot = ArtifactUtils.getSnapshotBaseVersion(version);
+
+        File metadataFile = MetadataHelper.getSnapshotMetadataFile(artifactBasePath, snapshot);
+
+        ReentrantLock lock = getLock(metadataFile);
+        lock.lock();
+        try
+        {
+            Metadata metadata;
+            if (metadataFile.exists())
+            {
+                metadata = readMetadata(metadataFile.getParentFile().toPath());
+            }
+            else
+            {
+                metadata = new Metadata();
+                metadata.setGroupId(groupId);
+                metadata.setArtifactId(artifactId);
+                metadata.setVersion(snapshot);
+            }
+
+            if (metadata.getVersioning() == null)
+            {
+                metadata.setVersioning(new Versioning());
+            }
+
+            SnapshotVersion snapshotVersion = MetadataHelper.createSnapshotVersion(groupId,
+                                                                                   artifactId,
+                                                                                   version,
+                                                                                   classifier,
+                                                                                   extension);
+
+            List<SnapshotVersion> snapshotVersions = metadata.getVersioning().getSnapshotVersions();
+            for (SnapshotVersion existing : snapshotVersions)
+            {
+                if (existing.getVersion().equals(snapshotVersion.getVersion()) &&
+                    existing.getClassifier().equals(snapshotVersion.getClassifier()) &&
+                    existing.getExtension().equals(snapshotVersion.getExtension()))
+                {
+                    return false;
+                }
+            }
+
+            snapshotVersions.add(snapshotVersion);
+
+            Collections.sort(snapshotVersions, new SnapshotVersionComparator());
+
+            // Set the snapshot mapping fields (timestamp + buildNumber)
+            MetadataHelper.setupSnapshotVersioning(metadata.getVersioning());
+            MetadataHelper.setLastUpdated(metadata.getVersioning());
+
+            storeMetadata(artifactBasePath, snapshot, metadata, MetadataType.SNAPSHOT_VERSION_LEVEL);
+
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the timestamped snapshots matched by the filter from the metadata file of a snapshot version directory,
+     * if it exists.
+     *
+     * @return <code>true</code>, if any timestamped snapshots were removed
+     */
+    public boolean removeTimestampedSnapshotVersions(Path artifactBasePath,
+                                                     String snapshot,
+                                                     Predicate<SnapshotVersion> filter)
+            throws IOException,
+                   XmlPullParserException,
+                   NoSuchAlgorithmException
+    {
+        File metadataFile = MetadataHelper.getSnapshotMetadataFile(artifactBasePath, snapshot);
+
+        ReentrantLock lock = getLock(metadataFile);
+        lock.lock();
+        try
+        {
+            if (!metadataFile.exists())
+            {
+                return false;
+            }
+
+            Metadata metadata = readMetadata(metadataFile.getParentFile().toPath());
+
+            Versioning versioning = metadata.getVersioning();
+            if (versioning == null || !versioning.getSnapshotVersions().removeIf(filter))
+            {
+                return false;
+            }
+
+            if (versioning.getSnapshotVersions().isEmpty())
+            {
+                versioning.setSnapshot(null);
+            }
+            else
+            {
+                // Set the snapshot mapping fields (timestamp + buildNumber)
+                MetadataHelper.setupSnapshotVersioning(versioning);
+            }
+
+            MetadataHelper.setLastUpdated(versioning);
+
+            storeMetadata(artifactBasePath, snapshot, metadata, MetadataType.SNAPSHOT_VERSION_LEVEL);
+
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sorts the versions and sets the <code>latest</code> and <code>release</code> fields accordingly.
+     */
+    private void updateVersioning(Versioning versioning)
+    {
+        List<String> versions = versioning.getVersions();
+
+        Collections.sort(versions, new VersionComparator());
+
+        String release = null;
+        for (String version : versions)
+        {
+            if (!ArtifactUtils.isSnapshot(version))
+            {
+                release = version;
+            }
+        }
+
+        versioning.setLatest(!versions.isEmpty() ? versions.get(versions.size() - 1) : null);
+        versioning.setRelease(release);
+
+        MetadataHelper.setLastUpdated(versioning);
+    }
+
     /**
      * Generate a metadata file for an artifact.
+     * <p>
+     * This collects all of the versions of the artifact from its directories and is meant for rebuilding the
+     * metadata. When a single version is deployed, or deleted, use {@link #addVersion(Path, String, String, String)}
+     * and {@link #removeVersion(Path, String)} instead.
      *
      * @param repository Repository
      * @throws IOException
@@ -278,9 +611,39 @@ public class MavenMetadataManager
                 logger.debug("Generated Maven metadata for " + artifact.getGroupId() + ":" +
                              artifact.getArtifactId() + ".");
             }
+            /**
+             * A mixed repository contains both releases and snapshots, so the metadata in the artifactBasePath lists
+             * both of them (with <release> pointing to the most recent release) and each snapshot directory gets its
+             * own maven-metadata.xml, as in a snapshot repository.
+             */
             else if (repository.getPolicy().equals(RepositoryPolicyEnum.MIXED.getPolicy()))
             {
-                // TODO: Implement merging.
+                // Don't write empty <versioning/> tags when no versions are available.
+                if (!versioning.getVersions().isEmpty())
+                {
+                    metadata.setVersioning(versioning);
+
+                    // Set <latest> and <release>
+                    updateVersioning(versioning);
+
+                    // Generate and write additional snapshot metadata.
+                    for (String version : versioning.getVersions())
+                    {
+                        if (ArtifactUtils.isSnapshot(version))
+                        {
+                            Path snapshotBasePath = Paths.get(request.getArtifactBasePath().toAbsolutePath() + "/" +
+                                                              ArtifactUtils.getSnapshotBaseVersion(version));
+
+                            generateSnapshotVersioningMetadata(snapshotBasePath, artifact, version, true);
+                        }
+                    }
+                }
+
+                // Write artifact metadata
+                storeMetadata(request.getArtifactBasePath(), null, metadata, MetadataType.ARTIFACT_ROOT_LEVEL);
+
+                logger.debug("Generated Maven metadata for " + artifact.getGroupId() + ":" +
+                             artifact.getArtifactId() + ".");
             }
             else
             {
@@ -381,6 +744,12 @@ public class MavenMetadataManager
             logger.debug("Artifact merge metadata triggered for " + artifact.toString() +
                          "(" +artifactBasePath + "). " + repository.getType());
 
+            // The metadata is read, merged and written back under the lock of the metadata file, so that no other
+            // write can slip in between.
+            ReentrantLock lock = getLock(MetadataHelper.getMetadataFile(artifactBasePath,
+                                                                        artifact.getVersion(),
+                                                                        MetadataType.ARTIFACT_ROOT_LEVEL));
+            lock.lock();
             try
             {
                 Metadata metadata = readMetadata(repository, artifact);
@@ -404,6 +773,10 @@ public class MavenMetadataManager
                 throw new IOException("Artifact " + artifact.toString() + " doesn't contain any metadata," +
                                       " therefore we can't merge the metadata!");
             }
+            finally
+            {
+                lock.unlock();
+            }
         }
         else
         {
@@ -412,4 +785,61 @@ public class MavenMetadataManager
         }
     }
 
+    /**
+     * Merges the copies of a metadata file from several repositories (for example, the members of a group
+     * repository). The copies are merged in order, so the earlier ones take precedence for the fields which can't be
+     * combined. The <code>latest</code> and <code>release</code> fields are worked out from all the versions.
+     *
+     * @param metadataList the copies of the metadata file
+     * @return the merged metadata
+     */
+    public Metadata mergeMetadata(List<Metadata> metadataList)
+    {
+        Metadata result = metadataList.get(0).clone();
+
+        for (Metadata metadata : metadataList.subList(1, metadataList.size()))
+        {
+            result.merge(metadata.clone());
+
+            // The snapshots of all the copies are listed, not just those of the most recently updated one.
+            if (metadata.getVersioning() != null && !metadata.getVersioning().getSnapshotVersions().isEmpty())
+            {
+                List<SnapshotVersion> snapshotVersions = result.getVersioning().getSnapshotVersions();
+                for (SnapshotVersion snapshotVersion : metadata.getVersioning().getSnapshotVersions())
+                {
+                    if (snapshotVersions.stream().noneMatch(v -> v.getVersion().equals(snapshotVersion.getVersion()) &&
+                                                                 v.getClassifier().equals(snapshotVersion.getClassifier()) &&
+                                                                 v.getExtension().equals(snapshotVersion.getExtension())))
+                    {
+                        snapshotVersions.add(snapshotVersion.clone());
+                    }
+                }
+            }
+        }
+
+        Versioning versioning = result.getVersioning();
+        if (versioning != null)
+        {
+            if (!versioning.getVersions().isEmpty())
+            {
+                String lastUpdated = versioning.getLastUpdated();
+
+                updateVersioning(versioning);
+
+                // The merged metadata is as recent as the most recent copy.
+                versioning.setLastUpdated(lastUpdated);
+            }
+
+            if (!versioning.getSnapshotVersions().isEmpty())
+            {
+                Collections.sort(versioning.getSnapshotVersions(), new SnapshotVersionComparator());
+
+                // Set the snapshot mapping fields (timestamp + buildNumber)
+                MetadataHelper.setupSnapshotVersioning(versioning);
+            }
+        }
+
+        return result;
+    }
+
 }
@@ -5,7 +5,10 @@ import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.configuration.ConfigurationManager;
 import org.carlspring.strongbox.providers.ProviderImplementationException;
 import org.carlspring.strongbox.resource.ResourceCloser;
+import org.carlspring.strongbox.services.ArtifactMetadataService;
 import org.carlspring.strongbox.services.ConfigurationManagementService;
+import org.carlspring.strongbox.storage.cache.GroupResolutionCache;
+import org.carlspring.strongbox.storage.metadata.MetadataType;
 import org.carlspring.strongbox.storage.repository.Repository;
 import org.carlspring.strongbox.storage.repository.RepositoryTypeEnum;
 import org.carlspring.strongbox.testing.TestCaseWithMavenArtifactGenerationAndIndexing;
@@ -15,11 +18,15 @@ import javax.xml.bind.JAXBException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import com.carmatechnologies.commons.testing.logging.ExpectedLogs;
 import com.carmatechnologies.commons.testing.logging.api.LogLevel;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -28,6 +35,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
@@ -60,6 +68,9 @@ public class GroupRepositoryProviderTest
     @Inject
     private ConfigurationManager configurationManager;
 
+    @Inject
+    private ArtifactMetadataService artifactMetadataService;
+
     @Rule
     public final ExpectedLogs logs = new ExpectedLogs()
     {{
@@ -342,6 +353,181 @@ public class GroupRepositoryProviderTest
         ResourceCloser.close(is, null);
     }
 
+    @Test
+    public void testGroupResolutionIsCached()
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        System.out.println("# Testing that the member a path was resolved from is cached...");
+
+        String path = "org/carlspring/metadata/by/juan/juancho/1.2.64/juancho-1.2.64.jar";
+
+        Repository repository = configurationManager.getRepository(STORAGE0 + ":" + REPOSITORY_GROUP_WITH_NESTED_GROUP_2);
+        GroupRepositoryProvider repositoryProvider = (GroupRepositoryProvider) repositoryProviderRegistry.getProvider(repository.getType());
+        GroupResolutionCache groupResolutionCache = repositoryProvider.getGroupResolutionCache();
+
+        InputStream is = repositoryProvider.getInputStream(STORAGE0, REPOSITORY_GROUP_WITH_NESTED_GROUP_2, path);
+
+        assertNotNull(is);
+
+        ResourceCloser.close(is, null);
+
+        assertEquals("Failed to record the member the path was resolved from!",
+                     STORAGE0 + ":" + REPOSITORY_RELEASES_2,
+                     groupResolutionCache.get(repository, path));
+
+        is = repositoryProvider.getInputStream(STORAGE0, REPOSITORY_GROUP_WITH_NESTED_GROUP_2, path);
+
+        assertNotNull(is);
+
+        ResourceCloser.close(is, null);
+
+        groupResolutionCache.invalidate(path);
+
+        assertNull(groupResolutionCache.get(repository, path));
+    }
+
+    @Test
+    public void testParallelLookup()
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException
+    {
+        System.out.println("# Testing parallel lookups of the group members...");
+
+        String path = "org/carlspring/metadata/by/juan/juancho/1.2.64/juancho-1.2.64.jar";
+
+        Repository repository = configurationManager.getRepository(STORAGE0 + ":" + REPOSITORY_GROUP);
+
+        // The group is shared with the other tests, so the fan-out has to be restored afterwards.
+        int parallelLookupFanOut = repository.getParallelLookupFanOut();
+        repository.setParallelLookupFanOut(2);
+
+        try
+        {
+            GroupRepositoryProvider repositoryProvider = (GroupRepositoryProvider) repositoryProviderRegistry.getProvider(repository.getType());
+
+            InputStream is = repositoryProvider.getInputStream(STORAGE0, REPOSITORY_GROUP, path);
+
+            assertNotNull(is);
+
+            ResourceCloser.close(is, null);
+
+            assertEquals(STORAGE0 + ":" + REPOSITORY_RELEASES_2,
+                         repositoryProvider.getGroupResolutionCache().get(repository, path));
+
+            is = repositoryProvider.getInputStream(STORAGE0,
+                                                   REPOSITORY_GROUP,
+                                                   "org/carlspring/metadata/by/juan/juancho/1.2.65/juancho-1.2.65.jar");
+
+            assertNull(is);
+        }
+        finally
+        {
+            repository.setParallelLookupFanOut(parallelLookupFanOut);
+        }
+    }
+
+    @Test
+    public void testMergedMetadata()
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException,
+                   XmlPullParserException
+    {
+        System.out.println("# Testing the merging of the metadata of the group members...");
+
+        String artifactPath = "org/carlspring/metadata/merged/bar";
+
+        generateArtifact(getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES_1).getAbsolutePath(),
+                         "org.carlspring.metadata.merged:bar:1.0");
+        generateArtifact(getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES_2).getAbsolutePath(),
+                         "org.carlspring.metadata.merged:bar:1.1");
+
+        artifactMetadataService.rebuildMetadata(STORAGE0, REPOSITORY_RELEASES_1, artifactPath);
+        artifactMetadataService.rebuildMetadata(STORAGE0, REPOSITORY_RELEASES_2, artifactPath);
+
+        Repository repository = configurationManager.getRepository(STORAGE0 + ":" + REPOSITORY_GROUP);
+        GroupRepositoryProvider repositoryProvider = (GroupRepositoryProvider) repositoryProviderRegistry.getProvider(repository.getType());
+        repositoryProvider.getGroupMetadataCache().clear();
+
+        Metadata metadata = readMetadata(repositoryProvider, artifactPath + "/maven-metadata.xml");
+
+        assertEquals(Arrays.asList("1.0", "1.1"), metadata.getVersioning().getVersions());
+        assertEquals("1.1", metadata.getVersioning().getLatest());
+        assertEquals("1.1", metadata.getVersioning().getRelease());
+        assertEquals("Failed to cache the merged metadata!", 1, repositoryProvider.getGroupMetadataCache().getSize());
+
+        // Changing the copy of one of the members should invalidate the merged metadata.
+        artifactMetadataService.addVersion(STORAGE0,
+                                           REPOSITORY_RELEASES_1,
+                                           artifactPath,
+                                           "1.2",
+                                           MetadataType.ARTIFACT_ROOT_LEVEL);
+
+        metadata = readMetadata(repositoryProvider, artifactPath + "/maven-metadata.xml");
+
+        assertEquals(Arrays.asList("1.0", "1.1", "1.2"), metadata.getVersioning().getVersions());
+        assertEquals("1.2", metadata.getVersioning().getRelease());
+    }
+
+    @Test
+    public void testMergedMetadataWithAcceptRule()
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException,
+                   XmlPullParserException
+    {
+        System.out.println("# Testing the merging of the metadata of the group members with an accept rule...");
+
+        String artifactPath = "org/carlspring/metadata/accepted/baz";
+
+        generateArtifact(getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES_1).getAbsolutePath(),
+                         "org.carlspring.metadata.accepted:baz:1.0");
+        generateArtifact(getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES_2).getAbsolutePath(),
+                         "org.carlspring.metadata.accepted:baz:1.1");
+
+        artifactMetadataService.rebuildMetadata(STORAGE0, REPOSITORY_RELEASES_1, artifactPath);
+        artifactMetadataService.rebuildMetadata(STORAGE0, REPOSITORY_RELEASES_2, artifactPath);
+
+        // Only the copy of the accepted repository should be served.
+        createRoutingRuleSet(STORAGE0,
+                             REPOSITORY_GROUP,
+                             new String[]{ REPOSITORY_RELEASES_2 },
+                             ".*org/carlspring/metadata/accepted.*",
+                             ROUTING_RULE_TYPE_ACCEPTED);
+
+        Repository repository = configurationManager.getRepository(STORAGE0 + ":" + REPOSITORY_GROUP);
+        GroupRepositoryProvider repositoryProvider = (GroupRepositoryProvider) repositoryProviderRegistry.getProvider(repository.getType());
+        repositoryProvider.getGroupMetadataCache().clear();
+
+        Metadata metadata = readMetadata(repositoryProvider, artifactPath + "/maven-metadata.xml");
+
+        assertEquals(Arrays.asList("1.1"), metadata.getVersioning().getVersions());
+        assertEquals("1.1", metadata.getVersioning().getRelease());
+    }
+
+    private Metadata readMetadata(RepositoryProvider repositoryProvider,
+                                  String path)
+            throws IOException,
+                   NoSuchAlgorithmException,
+                   ArtifactTransportException,
+                   ProviderImplementationException,
+                   XmlPullParserException
+    {
+        try (InputStream is = repositoryProvider.getInputStream(STORAGE0, REPOSITORY_GROUP, path))
+        {
+            assertNotNull(is);
+
+            return new MetadataXpp3Reader().read(is);
+        }
+    }
+
     @Test
     public void testGroupExcludes()
             throws IOException,
@@ -0,0 +1,276 @@
+package org.carlspring.strongbox.providers.repository;
+
+import org.carlspring.strongbox.providers.layout.Maven2LayoutProvider;
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.RemoteRepository;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class MavenDependencyPrefetcherTest
+{
+
+    private TestMavenDependencyPrefetcher prefetcher;
+
+    private Repository repository;
+
+
+    @Before
+    public void setUp()
+    {
+        prefetcher = new TestMavenDependencyPrefetcher();
+
+        RemoteRepository remoteRepository = new RemoteRepository();
+        remoteRepository.setPrefetchDependencies(true);
+
+        repository = new Repository("proxy");
+        repository.setStorage(new Storage("storage0"));
+        repository.setLayout(Maven2LayoutProvider.ALIAS);
+        repository.setRemoteRepository(remoteRepository);
+    }
+
+    @Test
+    public void testGetPomPaths()
+    {
+        Parent parent = new Parent();
+        parent.setGroupId("org.carlspring");
+        parent.setArtifactId("parent");
+        parent.setVersion("1.0");
+
+        Model model = new Model();
+        model.setParent(parent);
+        model.setArtifactId("foo");
+        model.getProperties().setProperty("bar.version", "2.0");
+
+        DependencyManagement dependencyManagement = new DependencyManagement();
+        dependencyManagement.addDependency(createDependency("org.carlspring", "bom", "${project.version}", "import"));
+        dependencyManagement.getDependencies().get(0).setType("pom");
+        dependencyManagement.addDependency(createDependency("org.carlspring", "managed", "3.0", null));
+        model.setDependencyManagement(dependencyManagement);
+
+        model.addDependency(createDependency("org.carlspring", "bar", "${bar.version}", null));
+        model.addDependency(createDependency("org.carlspring", "managed", null, "runtime"));
+        model.addDependency(createDependency("org.carlspring", "undefined", "${undefined.version}", null));
+        model.addDependency(createDependency("org.carlspring", "range", "[1.0,2.0)", null));
+        model.addDependency(createDependency("org.carlspring", "snapshot", "1.0-SNAPSHOT", null));
+        model.addDependency(createDependency("junit", "junit", "4.12", "test"));
+
+        Dependency optional = createDependency("org.carlspring", "optional", "1.0", null);
+        optional.setOptional(true);
+        model.addDependency(optional);
+
+        Set<String> paths = new MavenDependencyPrefetcher().getPomPaths(model);
+
+        assertEquals(Arrays.asList("org/carlspring/parent/1.0/parent-1.0.pom",
+                                   "org/carlspring/bom/1.0/bom-1.0.pom",
+                                   "org/carlspring/bar/2.0/bar-2.0.pom",
+                                   "org/carlspring/managed/3.0/managed-3.0.pom"),
+                     Arrays.asList(paths.toArray()));
+    }
+
+    @Test
+    public void testPrefetchDepthIsLimited()
+    {
+        prefetcher.setMaxDepth(2);
+
+        addPom("a", "b");
+        addPom("b", "c");
+        addPom("c", "d");
+        addPom("d");
+
+        prefetcher.artifactCached(repository, getPomPath("a"));
+        prefetcher.runTasks();
+
+        assertEquals(Arrays.asList(getPomPath("b"), getPomPath("c")), prefetcher.fetched);
+    }
+
+    @Test
+    public void testPrefetchCountIsLimited()
+    {
+        prefetcher.setMaxPrefetches(2);
+
+        addPom("a", "b", "c", "d");
+
+        prefetcher.artifactCached(repository, getPomPath("a"));
+        prefetcher.runTasks();
+
+        assertEquals(Arrays.asList(getPomPath("b"), getPomPath("c")), prefetcher.fetched);
+        assertEquals(0, prefetcher.getPrefetchCount());
+    }
+
+    @Test
+    public void testRejectedPrefetchesAreDropped()
+    {
+        // Only a single task fits in the queue of the executor.
+        prefetcher.maxTasks = 1;
+
+        addPom("a", "b", "c");
+
+        prefetcher.artifactCached(repository, getPomPath("a"));
+        prefetcher.runTasks();
+
+        assertEquals(Collections.singletonList(getPomPath("b")), prefetcher.fetched);
+        assertEquals(0, prefetcher.getPrefetchCount());
+    }
+
+    @Test
+    public void testQueuedPrefetchesAreNotDuplicated()
+    {
+        addPom("a", "b", "c");
+        addPom("x", "b");
+
+        prefetcher.artifactCached(repository, getPomPath("a"));
+        prefetcher.artifactCached(repository, getPomPath("x"));
+        prefetcher.runTasks();
+
+        assertEquals(Arrays.asList(getPomPath("b"), getPomPath("c")), prefetcher.fetched);
+    }
+
+    @Test
+    public void testFailuresDoNotAffectTheTriggeringRequest()
+    {
+        addPom("a", "b", "c");
+        prefetcher.failing.add(getPomPath("b"));
+
+        prefetcher.artifactCached(repository, getPomPath("a"));
+        prefetcher.runTasks();
+
+        assertEquals(Arrays.asList(getPomPath("b"), getPomPath("c")), prefetcher.fetched);
+        assertEquals(0, prefetcher.getPrefetchCount());
+
+        // A POM which cannot be parsed.
+        prefetcher.artifactCached(repository, getPomPath("unparseable"));
+        prefetcher.runTasks();
+
+        // The executor rejects everything.
+        prefetcher.maxTasks = 0;
+        prefetcher.artifactCached(repository, getPomPath("a"));
+
+        assertEquals(0, prefetcher.getPrefetchCount());
+    }
+
+    private void addPom(String artifactId,
+                        String... dependencies)
+    {
+        Model model = new Model();
+        model.setGroupId("org.carlspring");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+
+        for (String dependency : dependencies)
+        {
+            model.addDependency(createDependency("org.carlspring", dependency, "1.0", null));
+        }
+
+        prefetcher.models.put(getPomPath(artifactId), model);
+    }
+
+    private String getPomPath(String artifactId)
+    {
+        return "org/carlspring/" + artifactId + "/1.0/" + artifactId + "-1.0.pom";
+    }
+
+    private Dependency createDependency(String groupId,
+                                        String artifactId,
+                                        String version,
+                                        String scope)
+    {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        dependency.setScope(scope);
+
+        return dependency;
+    }
+
+    /**
+     * Runs the prefetches on the calling thread, once {@link #runTasks()} is called, and "downloads" the POM-s by
+     * notifying the prefetcher, just like the {@link ProxyRepositoryProvider} would.
+     */
+    private static class TestMavenDependencyPrefetcher
+            extends MavenDependencyPrefetcher
+    {
+
+        private final Map<String, Model> models = new HashMap<>();
+
+        private final Set<String> failing = new HashSet<>();
+
+        private final List<String> fetched = new ArrayList<>();
+
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        private int maxTasks = Integer.MAX_VALUE;
+
+
+        @Override
+        void execute(Runnable task)
+        {
+            if (tasks.size() >= maxTasks)
+            {
+                throw new RejectedExecutionException();
+            }
+
+            tasks.add(task);
+        }
+
+        @Override
+        Model readModel(Repository repository,
+                        String path)
+                throws Exception
+        {
+            Model model = models.get(path);
+            if (model == null)
+            {
+                throw new IOException("Failed to parse " + path + "!");
+            }
+
+            return model;
+        }
+
+        @Override
+        void fetch(Repository repository,
+                   String path)
+                throws Exception
+        {
+            fetched.add(path);
+
+            if (failing.contains(path))
+            {
+                throw new IOException("Failed to download " + path + "!");
+            }
+
+            artifactCached(repository, path);
+        }
+
+        void runTasks()
+        {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                task.run();
+            }
+        }
+
+    }
+
+}
@@ -13,7 +13,16 @@ import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.io.ByteStreams;
 import org.apache.commons.io.FileUtils;
@@ -23,6 +32,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 /**
@@ -37,6 +48,9 @@ public class ProxyRepositoryProviderTestIT
     @Inject
     private ArtifactResolutionService artifactResolutionService;
 
+    @Inject
+    private ProxyRepositoryProvider proxyRepositoryProvider;
+
 
     @Before
     public void setUp()
@@ -93,6 +107,73 @@ public class ProxyRepositoryProviderTestIT
                                     "+g:org.carlspring.maven +a:derby-maven-plugin +v:1.10");
     }
 
+    @Test
+    public void testConcurrentResolutionOfTheSameArtifact()
+            throws Exception
+    {
+        String path = "org/carlspring/maven/derby-maven-plugin/1.10/derby-maven-plugin-1.10.jar";
+
+        int numberOfClients = 8;
+
+        // Every download from the remote repository into the local cache is reported to the cache listeners.
+        AtomicInteger remoteFetches = new AtomicInteger();
+        ProxyRepositoryCacheListener listener = (repository, cachedPath) ->
+        {
+            if (cachedPath.equals(path))
+            {
+                remoteFetches.incrementAndGet();
+            }
+        };
+
+        proxyRepositoryProvider.addCacheListener(listener);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfClients);
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < numberOfClients; i++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    start.await();
+
+                    try (InputStream is = artifactResolutionService.getInputStream("storage-common-proxies",
+                                                                                   "maven-central",
+                                                                                   path))
+                    {
+                        assertNotNull("Failed to resolve " + path + "!", is);
+
+                        return ByteStreams.toByteArray(is);
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            byte[] cachedArtifact = Files.readAllBytes(Paths.get(ConfigurationResourceResolver.getVaultDirectory(),
+                                                                 "storages/storage-common-proxies/maven-central",
+                                                                 path));
+            for (Future<byte[]> result : results)
+            {
+                assertArrayEquals("Clients received different content for " + path + "!",
+                                  cachedArtifact,
+                                  result.get());
+            }
+
+            assertEquals("The concurrent requests should have been served by a single remote download!",
+                         1,
+                         remoteFetches.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+
+            proxyRepositoryProvider.removeCacheListener(listener);
+        }
+    }
+
     private void assertStreamNotNull(String storageId, String repositoryId, String path)
             throws IOException,
                    NoSuchAlgorithmException,
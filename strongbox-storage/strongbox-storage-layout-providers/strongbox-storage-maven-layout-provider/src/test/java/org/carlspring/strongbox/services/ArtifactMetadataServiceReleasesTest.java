@@ -204,6 +204,8 @@ public class ArtifactMetadataServiceReleasesTest
 
         assertNotNull(metadataAfter);
         assertFalse("Unexpected set of versions!", MetadataHelper.containsVersion(metadataAfter, "1.3"));
+        assertEquals("Unexpected set of versions!", "1.2", metadataAfter.getVersioning().getLatest());
+        assertEquals("Unexpected set of versions!", "1.2", metadataAfter.getVersioning().getRelease());
     }
 
     @Test
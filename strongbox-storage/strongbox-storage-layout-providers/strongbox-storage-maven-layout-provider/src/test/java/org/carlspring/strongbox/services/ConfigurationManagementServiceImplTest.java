@@ -3,6 +3,9 @@ package org.carlspring.strongbox.services;
 import org.carlspring.strongbox.TestConfig;
 import org.carlspring.strongbox.configuration.Configuration;
 import org.carlspring.strongbox.configuration.ConfigurationRepository;
+import org.carlspring.strongbox.providers.io.RepositoryFileSystem;
+import org.carlspring.strongbox.providers.layout.AbstractLayoutProvider;
+import org.carlspring.strongbox.providers.layout.LayoutProviderRegistry;
 import org.carlspring.strongbox.storage.Storage;
 import org.carlspring.strongbox.storage.repository.HttpConnectionPool;
 import org.carlspring.strongbox.storage.repository.Repository;
@@ -59,6 +62,9 @@ public class ConfigurationManagementServiceImplTest
     @Inject
     private ConfigurationManagementService configurationManagementService;
 
+    @Inject
+    private LayoutProviderRegistry layoutProviderRegistry;
+
 
     @BeforeClass
     public static void cleanUp()
@@ -162,6 +168,26 @@ public class ConfigurationManagementServiceImplTest
         configurationManagementService.removeRepository(STORAGE0, REPOSITORY_GROUP_2);
     }
 
+    @Test
+    public void testRemoveRepositoryDropsItsFileSystem() throws Exception
+    {
+        Repository repository = configurationManagementService.getRepository(STORAGE0, REPOSITORY_RELEASES_2);
+        AbstractLayoutProvider layoutProvider = (AbstractLayoutProvider) layoutProviderRegistry.getProvider(
+                repository.getLayout());
+
+        RepositoryFileSystem fileSystem = layoutProvider.getRepositoryFileSystem(repository);
+
+        assertSame(fileSystem, layoutProvider.getRepositoryFileSystem(repository));
+
+        configurationManagementService.removeRepository(STORAGE0, REPOSITORY_RELEASES_2);
+
+        assertNotSame("Failed to drop the file system of the removed repository!",
+                      fileSystem,
+                      layoutProvider.getRepositoryFileSystem(repository));
+
+        layoutProvider.removeRepositoryFileSystem(STORAGE0, REPOSITORY_RELEASES_2);
+    }
+
     @Test
     public void testSetProxyRepositoryMaxConnections() throws IOException, JAXBException
     {
@@ -13,6 +13,8 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.maven.index.ArtifactInfo;
 import org.junit.After;
@@ -113,6 +115,107 @@ public class RepositoryIndexerTest
         assertEquals("org.carlspring.strongbox:strongbox-commons:1.0 should have been deleted!", 0, search.size());
     }
 
+    @Test
+    public void testQueuedArtifactsAreAddedOnFlush()
+            throws Exception
+    {
+        RepositoryIndexer sharedIndexer = getRepositoryIndexManager().getRepositoryIndexer(STORAGE0 + ":" +
+                                                                                           REPOSITORY_RELEASES + ":" +
+                                                                                           IndexTypeEnum.LOCAL
+                                                                                                        .getType());
+
+        // The shared indexer may have a flush scheduled already, so the artifact is queued in a dedicated indexer
+        // (of the same index), whose own executor won't add it in the background, while the test is running.
+        ScheduledExecutorService indexingExecutor = Executors.newSingleThreadScheduledExecutor();
+
+        RepositoryIndexer repositoryIndexer = createRepositoryIndexer(sharedIndexer, indexingExecutor);
+        repositoryIndexer.setIndexingDelay(60000L);
+
+        try
+        {
+            File repositoryBasedir = getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES);
+
+            generateArtifact(repositoryBasedir.getAbsolutePath(), "org.carlspring.strongbox:strongbox-queued:1.0:jar");
+
+            repositoryIndexer.queueArtifact(new File(repositoryBasedir,
+                                                     "org/carlspring/strongbox/strongbox-queued/1.0/strongbox-queued-1.0.jar"));
+
+            Set<SearchResult> search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-queued", "1.0", null, null);
+
+            assertEquals("The queued artifact should not have been added to the index yet!", 0, search.size());
+
+            repositoryIndexer.flush();
+
+            search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-queued", "1.0", null, null);
+
+            assertEquals("Failed to add the queued artifact to the index!", 1, search.size());
+        }
+        finally
+        {
+            indexingExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueuedArtifactsAreAddedByTheCallerWhenTooManyArePending()
+            throws Exception
+    {
+        RepositoryIndexer sharedIndexer = getRepositoryIndexManager().getRepositoryIndexer(STORAGE0 + ":" +
+                                                                                           REPOSITORY_RELEASES + ":" +
+                                                                                           IndexTypeEnum.LOCAL
+                                                                                                        .getType());
+
+        ScheduledExecutorService indexingExecutor = Executors.newSingleThreadScheduledExecutor();
+
+        RepositoryIndexer repositoryIndexer = createRepositoryIndexer(sharedIndexer, indexingExecutor);
+        repositoryIndexer.setIndexingDelay(60000L);
+        repositoryIndexer.setMaxPendingArtifacts(2);
+
+        try
+        {
+            File repositoryBasedir = getRepositoryBasedir(STORAGE0, REPOSITORY_RELEASES);
+
+            generateArtifact(repositoryBasedir.getAbsolutePath(), "org.carlspring.strongbox:strongbox-pending:1.0:jar");
+            generateArtifact(repositoryBasedir.getAbsolutePath(), "org.carlspring.strongbox:strongbox-pending:1.1:jar");
+
+            repositoryIndexer.queueArtifact(new File(repositoryBasedir,
+                                                     "org/carlspring/strongbox/strongbox-pending/1.0/strongbox-pending-1.0.jar"));
+
+            Set<SearchResult> search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-pending", null, null, null);
+
+            assertEquals("The queued artifact should not have been added to the index yet!", 0, search.size());
+
+            repositoryIndexer.queueArtifact(new File(repositoryBasedir,
+                                                     "org/carlspring/strongbox/strongbox-pending/1.1/strongbox-pending-1.1.jar"));
+
+            search = repositoryIndexer.search("org.carlspring.strongbox", "strongbox-pending", null, null, null);
+
+            assertEquals("The pending artifacts should have been added to the index by the caller!", 2, search.size());
+        }
+        finally
+        {
+            indexingExecutor.shutdownNow();
+        }
+    }
+
+    private RepositoryIndexer createRepositoryIndexer(RepositoryIndexer sharedIndexer,
+                                                      ScheduledExecutorService indexingExecutor)
+    {
+        RepositoryIndexer repositoryIndexer = new RepositoryIndexer(sharedIndexer.getContextId());
+        repositoryIndexer.setStorageId(sharedIndexer.getStorageId());
+        repositoryIndexer.setRepositoryId(sharedIndexer.getRepositoryId());
+        repositoryIndexer.setRepositoryBasedir(sharedIndexer.getRepositoryBasedir());
+        repositoryIndexer.setIndexDir(sharedIndexer.getIndexDir());
+        repositoryIndexer.setIndexingContext(sharedIndexer.getIndexingContext());
+        repositoryIndexer.setIndexer(sharedIndexer.getIndexer());
+        repositoryIndexer.setScanner(sharedIndexer.getScanner());
+        repositoryIndexer.setConfiguration(sharedIndexer.getConfiguration());
+        repositoryIndexer.setArtifactContextProducer(sharedIndexer.getArtifactContextProducer());
+        repositoryIndexer.setIndexingExecutor(indexingExecutor);
+
+        return repositoryIndexer;
+    }
+
     private Collection<ArtifactInfo> asArtifactInfo(Set<SearchResult> results)
     {
         Collection<ArtifactInfo> artifactInfos = new LinkedHashSet<>();
@@ -0,0 +1,85 @@
+package org.carlspring.strongbox.storage.metadata;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MavenMetadataCacheTest
+{
+
+    public static final Path BASEDIR = Paths.get("target/test-resources/metadata-cache");
+
+    private MavenMetadataCache cache;
+
+    private Path metadataFile;
+
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        cache = new MavenMetadataCache();
+
+        Files.createDirectories(BASEDIR);
+
+        metadataFile = BASEDIR.resolve("maven-metadata.xml");
+        Files.write(metadataFile, "<metadata/>".getBytes());
+    }
+
+    @Test
+    public void testMetadataIsValidForTheCurrentContents()
+            throws Exception
+    {
+        cache.put(metadataFile, getAttributes(), createMetadata("1.0"));
+
+        assertEquals("1.0", cache.get(metadataFile, getAttributes()).getVersioning().getLatest());
+
+        // The file has been modified outside of the metadata manager.
+        Files.write(metadataFile, "<metadata></metadata>".getBytes());
+        Files.setLastModifiedTime(metadataFile, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        assertNull(cache.get(metadataFile, getAttributes()));
+    }
+
+    @Test
+    public void testCachedMetadataIsNotModifiedByCallers()
+            throws Exception
+    {
+        Metadata metadata = createMetadata("1.0");
+        cache.put(metadataFile, getAttributes(), metadata);
+
+        metadata.getVersioning().setLatest("1.1");
+        cache.get(metadataFile, getAttributes()).getVersioning().setLatest("1.2");
+
+        assertEquals("1.0", cache.get(metadataFile, getAttributes()).getVersioning().getLatest());
+    }
+
+    private Metadata createMetadata(String latest)
+    {
+        Versioning versioning = new Versioning();
+        versioning.setLatest(latest);
+
+        Metadata metadata = new Metadata();
+        metadata.setGroupId("org.carlspring.strongbox");
+        metadata.setArtifactId("metadata-cache");
+        metadata.setVersioning(versioning);
+
+        return metadata;
+    }
+
+    private BasicFileAttributes getAttributes()
+            throws Exception
+    {
+        return Files.readAttributes(metadataFile, BasicFileAttributes.class);
+    }
+
+}
@@ -322,6 +322,8 @@ public abstract class TestCaseWithMavenArtifactGenerationAndIndexing
                                           String query)
             throws SearchException
     {
+        flushIndex(storageId, repositoryId);
+
         SearchRequest request = new SearchRequest(storageId,
                                                   repositoryId,
                                                   query,
@@ -330,6 +332,21 @@ public abstract class TestCaseWithMavenArtifactGenerationAndIndexing
         return artifactSearchService.contains(request);
     }
 
+    /**
+     * Adds the artifacts, which are still queued for indexing, to the local index of the repository.
+     */
+    public void flushIndex(String storageId,
+                           String repositoryId)
+    {
+        RepositoryIndexer repositoryIndexer = repositoryIndexManager.getRepositoryIndexer(storageId + ":" +
+                                                                                          repositoryId + ":" +
+                                                                                          IndexTypeEnum.LOCAL.getType());
+        if (repositoryIndexer != null)
+        {
+            repositoryIndexer.flush();
+        }
+    }
+
     public RepositoryIndexManager getRepositoryIndexManager()
     {
         return repositoryIndexManager;
@@ -5,7 +5,9 @@ import java.io.OutputStream;
 import java.nio.file.spi.FileSystemProvider;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -51,6 +53,9 @@ public class NugetHierarchicalLayoutProvider
 
     public static final String ALIAS = "Nuget Hierarchical";
 
+    private static final Set<String> DIGEST_ALGORITHM_SET = Collections.unmodifiableSet(
+            Stream.of(MessageDigestAlgorithms.SHA_512).collect(Collectors.toSet()));
+
     @Inject
     private NugetRepositoryFeatures nugetRepositoryFeatures;
 
@@ -107,8 +112,7 @@ public class NugetHierarchicalLayoutProvider
     @Override
     public Set<String> getDigestAlgorithmSet()
     {
-        return Stream.of(MessageDigestAlgorithms.SHA_512)
-                     .collect(Collectors.toSet());
+        return DIGEST_ALGORITHM_SET;
     }
 
     @Override
@@ -145,7 +149,7 @@ public class NugetHierarchicalLayoutProvider
     }
 
     @Override
-    public RepositoryFileSystemProvider getProvider(Repository repository)
+    protected RepositoryFileSystemProvider createProvider(Repository repository)
     {
         FileSystemProvider storageFileSystemProvider = getStorageProvider(repository).getFileSystemProvider();
         RepositoryLayoutFileSystemProvider repositoryFileSystemProvider = new NugetRepositoryLayoutFileSystemProvider(
@@ -171,6 +175,12 @@ public class NugetHierarchicalLayoutProvider
             result.setDigestStringifier(NugetHierarchicalLayoutProvider.this::toBase64);
             return result;
         }
+
+        @Override
+        protected Function<byte[], String> getDigestStringifier()
+        {
+            return NugetHierarchicalLayoutProvider.this::toBase64;
+        }
         
     }
     
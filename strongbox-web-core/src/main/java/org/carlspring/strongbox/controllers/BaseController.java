@@ -9,8 +9,18 @@ import org.carlspring.strongbox.xml.parsers.GenericParser;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletResponse;
 import javax.xml.bind.JAXBException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -26,6 +36,14 @@ import org.springframework.http.ResponseEntity;
 public abstract class BaseController
 {
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The output stream of Jetty's responses, which can send the contents of a channel without copying them through the
+     * heap. The servlet containers hide their own classes from the web applications, so this is looked up by name.
+     */
+    private static final String JETTY_OUTPUT_CLASS = "org.eclipse.jetty.server.HttpOutput";
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     @Inject
@@ -76,24 +94,120 @@ public abstract class BaseController
             long totalBytes = 0L;
 
             int readLength;
-            byte[] bytes = new byte[4096];
+            byte[] bytes = new byte[COPY_BUFFER_SIZE];
             while ((readLength = is.read(bytes, 0, bytes.length)) != -1)
             {
-                // Write the artifact
+                // Write the artifact (the container flushes its buffer, whenever it fills up)
                 os.write(bytes, 0, readLength);
-                os.flush();
 
                 totalBytes += readLength;
             }
 
-            response.setHeader("Content-Length", Long.toString(totalBytes));
+            if (!response.isCommitted())
+            {
+                response.setHeader("Content-Length", Long.toString(totalBytes));
+            }
             response.flushBuffer();
         }
         finally
         {
             ResourceCloser.close(is, logger);
+        }
+
+        // If reading fails, the response is not completed, so that the container cuts it short (instead of ending a
+        // truncated body, which may look complete to the client).
+        ResourceCloser.close(os, logger);
+    }
+
+    /**
+     * Sends a file as is, without copying it through the heap: if the servlet container is Jetty, the file channel is
+     * handed over to it, to be sent through its direct buffers, otherwise the file is transferred from the file channel
+     * to the response.
+     */
+    protected void copyToResponse(Path file,
+                                  HttpServletResponse response)
+            throws Exception
+    {
+        long length = Files.size(file);
+
+        response.setHeader("Content-Length", Long.toString(length));
+
+        OutputStream os = response.getOutputStream();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            Method sendContent = getSendContentMethod(os);
+            if (sendContent != null)
+            {
+                sendContent(sendContent, os, channel);
+
+                return;
+            }
+
+            WritableByteChannel target = os instanceof WritableByteChannel ?
+                                         (WritableByteChannel) os :
+                                         Channels.newChannel(os);
+
+            long position = 0L;
+            while (position < length)
+            {
+                long transferred = channel.transferTo(position, length - position, target);
+                if (transferred <= 0)
+                {
+                    throw new IOException("Sent only " + position + " bytes of " + file + ", instead of " +
+                                          length + "!");
+                }
+
+                position += transferred;
+            }
+
+            response.flushBuffer();
+        }
+        finally
+        {
             ResourceCloser.close(os, logger);
         }
     }
 
+    /**
+     * @return Jetty's <code>HttpOutput.sendContent(ReadableByteChannel)</code>, if the output stream is Jetty's, or
+     *         <code>null</code> otherwise
+     */
+    private static Method getSendContentMethod(OutputStream os)
+    {
+        for (Class<?> type = os.getClass(); type != null; type = type.getSuperclass())
+        {
+            if (JETTY_OUTPUT_CLASS.equals(type.getName()))
+            {
+                try
+                {
+                    return type.getMethod("sendContent", ReadableByteChannel.class);
+                }
+                catch (NoSuchMethodException e)
+                {
+                    return null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static void sendContent(Method sendContent,
+                                    OutputStream os,
+                                    ReadableByteChannel channel)
+            throws Exception
+    {
+        try
+        {
+            sendContent.invoke(os, channel);
+        }
+        catch (InvocationTargetException e)
+        {
+            Throwable cause = e.getCause();
+
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
 }
@@ -0,0 +1,135 @@
+package org.carlspring.strongbox.controllers;
+
+import org.carlspring.strongbox.providers.repository.RemoteRepositoryCircuitBreaker;
+import org.carlspring.strongbox.providers.repository.RemoteRepositoryStatus;
+import org.carlspring.strongbox.storage.Storage;
+import org.carlspring.strongbox.storage.repository.Repository;
+
+import javax.inject.Inject;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Exposes the health of the remote repositories of proxy repositories, as tracked by the
+ * {@link RemoteRepositoryCircuitBreaker}.
+ */
+@Controller
+@PreAuthorize("hasAuthority('ADMIN')")
+@RequestMapping("/configuration/proxy/health")
+@Api(value = "/configuration/proxy/health")
+public class RemoteRepositoryHealthController
+        extends BaseController
+{
+
+    @Inject
+    private RemoteRepositoryCircuitBreaker remoteRepositoryCircuitBreaker;
+
+
+    @ApiOperation(value = "Get the health of the remote repository of a proxy repository")
+    @ApiResponses(value = { @ApiResponse(code = 200,
+                                         message = "The health of the remote repository was retrieved."),
+                            @ApiResponse(code = 400,
+                                         message = "The repository does not have a remote repository."),
+                            @ApiResponse(code = 404,
+                                         message = "The repository does not exist."),
+                            @ApiResponse(code = 500,
+                                         message = "An error occurred.") })
+    @RequestMapping(value = "{storageId}/{repositoryId}",
+                    method = RequestMethod.GET,
+                    produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity getStatus(@PathVariable(value = "storageId") String storageId,
+                                    @PathVariable(value = "repositoryId") String repositoryId)
+    {
+        ResponseEntity error = validate(storageId, repositoryId);
+        if (error != null)
+        {
+            return error;
+        }
+
+        RemoteRepositoryStatus status = remoteRepositoryCircuitBreaker.getStatus(storageId, repositoryId);
+        if (status == null)
+        {
+            // The remote repository has not failed so far.
+            status = new RemoteRepositoryStatus(getConfiguration().getStorage(storageId)
+                                                                  .getRepository(repositoryId)
+                                                                  .getRemoteRepository()
+                                                                  .getUrl());
+        }
+
+        return ResponseEntity.ok(status);
+    }
+
+    @ApiOperation(value = "Get the health of all the remote repositories which have failed so far")
+    @ApiResponses(value = { @ApiResponse(code = 200,
+                                         message = "The health of the remote repositories was retrieved.") })
+    @RequestMapping(method = RequestMethod.GET,
+                    produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity getStatuses()
+    {
+        return ResponseEntity.ok(remoteRepositoryCircuitBreaker.getStatuses());
+    }
+
+    @ApiOperation(value = "Unblock the remote repository of a proxy repository")
+    @ApiResponses(value = { @ApiResponse(code = 200,
+                                         message = "The remote repository was unblocked."),
+                            @ApiResponse(code = 400,
+                                         message = "The repository does not have a remote repository."),
+                            @ApiResponse(code = 404,
+                                         message = "The repository does not exist."),
+                            @ApiResponse(code = 500,
+                                         message = "An error occurred.") })
+    @RequestMapping(value = "{storageId}/{repositoryId}/reset",
+                    method = RequestMethod.PUT,
+                    produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity reset(@PathVariable(value = "storageId") String storageId,
+                                @PathVariable(value = "repositoryId") String repositoryId)
+    {
+        ResponseEntity error = validate(storageId, repositoryId);
+        if (error != null)
+        {
+            return error;
+        }
+
+        remoteRepositoryCircuitBreaker.reset(storageId, repositoryId);
+
+        return ResponseEntity.ok("The remote repository was unblocked.");
+    }
+
+    private ResponseEntity validate(String storageId,
+                                    String repositoryId)
+    {
+        Storage storage = getConfiguration().getStorage(storageId);
+        if (storage == null)
+        {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                 .body("The storage does not exist!");
+        }
+
+        Repository repository = storage.getRepository(repositoryId);
+        if (repository == null)
+        {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                 .body("The repository does not exist!");
+        }
+
+        if (repository.getRemoteRepository() == null)
+        {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                 .body("Repository doesn't have remote repository!");
+        }
+
+        return null;
+    }
+
+}
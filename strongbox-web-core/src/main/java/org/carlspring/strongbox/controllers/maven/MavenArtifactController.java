@@ -4,6 +4,11 @@ import org.carlspring.maven.commons.util.ArtifactUtils;
 import org.carlspring.strongbox.client.ArtifactTransportException;
 import org.carlspring.strongbox.controllers.BaseArtifactController;
 import org.carlspring.strongbox.io.ArtifactInputStream;
+import org.carlspring.strongbox.io.StreamUtils;
+import org.carlspring.strongbox.providers.io.RepositoryFileAttributes;
+import org.carlspring.strongbox.providers.io.RepositoryPath;
+import org.carlspring.strongbox.providers.repository.GroupRepositoryProvider;
+import org.carlspring.strongbox.resource.ResourceCloser;
 import org.carlspring.strongbox.services.ArtifactManagementService;
 import org.carlspring.strongbox.storage.ArtifactResolutionException;
 import org.carlspring.strongbox.storage.ArtifactStorageException;
@@ -18,10 +23,15 @@ import javax.xml.bind.JAXBException;
 import java.io.File;
 import java.io.IOException;
 import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import io.swagger.annotations.*;
@@ -40,10 +50,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import static org.carlspring.strongbox.utils.ArtifactControllerHelper.getETag;
 import static org.carlspring.strongbox.utils.ArtifactControllerHelper.handlePartialDownload;
+import static org.carlspring.strongbox.utils.ArtifactControllerHelper.isIfRangeSatisfied;
+import static org.carlspring.strongbox.utils.ArtifactControllerHelper.isNotModified;
 import static org.carlspring.strongbox.utils.ArtifactControllerHelper.isRangedRequest;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 
 /**
  * REST API for all artifact-related processes.
@@ -67,6 +81,9 @@ public class MavenArtifactController
     @Inject
     private ArtifactManagementService mavenArtifactManagementService;
 
+    @Inject
+    private GroupRepositoryProvider groupRepositoryProvider;
+
 
     @PreAuthorize("authenticated")
     @RequestMapping(value = "greet",
@@ -132,32 +149,9 @@ public class MavenArtifactController
     {
         logger.debug("Requested /" + storageId + "/" + repositoryId + "/" + path + ".");
 
-        Storage storage = configurationManager.getConfiguration().getStorage(storageId);
-        if (storage == null)
-        {
-            logger.error("Unable to find storage by ID " + storageId);
-
-            response.sendError(INTERNAL_SERVER_ERROR.value(), "Unable to find storage by ID " + storageId);
-
-            return;
-        }
-
-        Repository repository = storage.getRepository(repositoryId);
+        Repository repository = getRepositoryForResolution(storageId, repositoryId, response);
         if (repository == null)
         {
-            logger.error("Unable to find repository by ID " + repositoryId + " for storage " + storageId);
-
-            response.sendError(INTERNAL_SERVER_ERROR.value(),
-                               "Unable to find repository by ID " + repositoryId + " for storage " + storageId);
-            return;
-        }
-
-        if (!repository.isInService())
-        {
-            logger.error("Repository is not in service...");
-
-            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
-
             return;
         }
 
@@ -178,6 +172,11 @@ public class MavenArtifactController
             return;
         }
 
+        if (handleFromAttributes(repository, path, httpHeaders, false, response))
+        {
+            return;
+        }
+
         ArtifactInputStream is;
         try
         {
@@ -188,14 +187,51 @@ public class MavenArtifactController
                 return;
             }
 
-            if (isRangedRequest(httpHeaders))
+            if (isNotModified(httpHeaders, getETag(is), StreamUtils.getLastModified(is)))
+            {
+                ArtifactControllerHelper.setHeadersForValidators(is, response);
+                response.setStatus(NOT_MODIFIED.value());
+
+                ResourceCloser.close(is, logger);
+
+                return;
+            }
+
+            // The headers have to be set before the contents are sent, as the response gets committed then.
+            setMediaTypeHeader(path, response);
+
+            response.setHeader("Accept-Ranges", "bytes");
+
+            ArtifactControllerHelper.setHeadersForChecksums(is, response);
+            ArtifactControllerHelper.setHeadersForValidators(is, response);
+
+            if (isRangedRequest(httpHeaders) && isIfRangeSatisfied(is, httpHeaders))
             {
                 logger.debug("Detecting range request....");
 
                 handlePartialDownload(is, httpHeaders, response);
             }
+            else
+            {
+                Path file = StreamUtils.getPath(is);
+                if (file != null)
+                {
+                    // A plain file, which can be sent as is, without going through the stream.
+                    ResourceCloser.close(is, logger);
+
+                    copyToResponse(file, response);
+                }
+                else
+                {
+                    long length = StreamUtils.getLength(is);
+                    if (length > 0)
+                    {
+                        response.setHeader("Content-Length", Long.toString(length));
+                    }
 
-            copyToResponse(is, response);
+                    copyToResponse(is, response);
+                }
+            }
         }
         catch (ArtifactResolutionException | ArtifactTransportException e)
         {
@@ -206,13 +242,251 @@ public class MavenArtifactController
             return;
         }
 
+        logger.debug("Download succeeded.");
+    }
+
+    @ApiOperation(value = "Used to retrieve the headers of an artifact, without its contents",
+                  position = 2)
+    @ApiResponses(value = { @ApiResponse(code = 200,
+                                         message = ""),
+                            @ApiResponse(code = 304,
+                                         message = "The artifact has not been modified."),
+                            @ApiResponse(code = 404,
+                                         message = "The artifact does not exist.") })
+    @PreAuthorize("hasAuthority('ARTIFACTS_RESOLVE')")
+    @RequestMapping(value = { "{storageId}/{repositoryId}/{path:.+}" },
+                    method = RequestMethod.HEAD)
+    public void head(@ApiParam(value = "The storageId",
+                               required = true)
+                     @PathVariable String storageId,
+                     @ApiParam(value = "The repositoryId",
+                               required = true)
+                     @PathVariable String repositoryId,
+                     @RequestHeader HttpHeaders httpHeaders,
+                     @PathVariable String path,
+                     HttpServletResponse response)
+            throws Exception
+    {
+        logger.debug("Requested the headers of /" + storageId + "/" + repositoryId + "/" + path + ".");
+
+        Repository repository = getRepositoryForResolution(storageId, repositoryId, response);
+        if (repository == null)
+        {
+            return;
+        }
+
+        if (handleFromAttributes(repository, path, httpHeaders, true, response))
+        {
+            return;
+        }
+
+        if (repository.isGroupRepository())
+        {
+            // Merged metadata files only exist as the merge of the members' copies, so they have to be resolved.
+            if (groupRepositoryProvider.isMergedMetadataPath(repository, path))
+            {
+                headFromStream(storageId, repositoryId, path, httpHeaders, response);
+
+                return;
+            }
+
+            RepositoryPath memberPath = groupRepositoryProvider.resolveStoredPath(repository, path);
+            if (memberPath != null && handleFromAttributes(memberPath, httpHeaders, true, response))
+            {
+                return;
+            }
+        }
+
+        // The artifact is not stored locally. If it may be available remotely, it is resolved as usual (which
+        // caches proxied artifacts), so that clients (such as Maven's wagon) can check for their existence with HEAD.
+        if (repository.isProxyRepository() ||
+            repository.isGroupRepository() && groupRepositoryProvider.hasProxyMembers(repository))
+        {
+            headFromStream(storageId, repositoryId, path, httpHeaders, response);
+
+            return;
+        }
+
+        logger.debug("/" + storageId + "/" + repositoryId + "/" + path + " is not stored locally.");
+
+        response.setStatus(NOT_FOUND.value());
+    }
+
+    private void headFromStream(String storageId,
+                                String repositoryId,
+                                String path,
+                                HttpHeaders httpHeaders,
+                                HttpServletResponse response)
+            throws Exception
+    {
+        ArtifactInputStream is;
+        try
+        {
+            is = (ArtifactInputStream) getArtifactManagementService().resolve(storageId, repositoryId, path);
+        }
+        catch (ArtifactResolutionException | ArtifactTransportException e)
+        {
+            is = null;
+        }
+
+        if (is == null)
+        {
+            response.setStatus(NOT_FOUND.value());
+
+            return;
+        }
+
+        try
+        {
+            ArtifactControllerHelper.setHeadersForValidators(is, response);
+
+            if (isNotModified(httpHeaders, getETag(is), StreamUtils.getLastModified(is)))
+            {
+                response.setStatus(NOT_MODIFIED.value());
+
+                return;
+            }
+
+            setMediaTypeHeader(path, response);
+
+            response.setHeader("Accept-Ranges", "bytes");
+
+            long length = StreamUtils.getLength(is);
+            if (length > 0)
+            {
+                response.setHeader("Content-Length", Long.toString(length));
+            }
+
+            ArtifactControllerHelper.setHeadersForChecksums(is, response);
+        }
+        finally
+        {
+            ResourceCloser.close(is, logger);
+        }
+    }
+
+    /**
+     * @return the repository, or <code>null</code>, if it does not exist, or is not in service, in which case the
+     *         response has already been sent
+     */
+    private Repository getRepositoryForResolution(String storageId,
+                                                  String repositoryId,
+                                                  HttpServletResponse response)
+            throws IOException
+    {
+        Storage storage = configurationManager.getConfiguration().getStorage(storageId);
+        if (storage == null)
+        {
+            logger.error("Unable to find storage by ID " + storageId);
+
+            response.sendError(INTERNAL_SERVER_ERROR.value(), "Unable to find storage by ID " + storageId);
+
+            return null;
+        }
+
+        Repository repository = storage.getRepository(repositoryId);
+        if (repository == null)
+        {
+            logger.error("Unable to find repository by ID " + repositoryId + " for storage " + storageId);
+
+            response.sendError(INTERNAL_SERVER_ERROR.value(),
+                               "Unable to find repository by ID " + repositoryId + " for storage " + storageId);
+            return null;
+        }
+
+        if (!repository.isInService())
+        {
+            logger.error("Repository is not in service...");
+
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+
+            return null;
+        }
+
+        return repository;
+    }
+
+    /**
+     * Serves conditional requests for artifacts, which have not been modified, and HEAD requests using only the file
+     * attributes and the stored checksums of the artifact, without opening it. This is only possible for artifacts
+     * which are stored in the repository itself, as opposed to the members of a group repository, or the remote
+     * repository of a proxy repository (if they have not been cached yet).
+     *
+     * @return <code>true</code>, if the request has been served
+     */
+    private boolean handleFromAttributes(Repository repository,
+                                         String path,
+                                         HttpHeaders httpHeaders,
+                                         boolean head,
+                                         HttpServletResponse response)
+            throws IOException
+    {
+        if (repository.isGroupRepository())
+        {
+            return false;
+        }
+
+        RepositoryPath artifactPath = getLayoutProviderRegistry().getProvider(repository.getLayout())
+                                                                 .resolve(repository)
+                                                                 .resolve(path);
+
+        return handleFromAttributes(artifactPath, httpHeaders, head, response);
+    }
+
+    private boolean handleFromAttributes(RepositoryPath artifactPath,
+                                         HttpHeaders httpHeaders,
+                                         boolean head,
+                                         HttpServletResponse response)
+            throws IOException
+    {
+        String path = artifactPath.getRepositoryRelative().toString();
+
+        BasicFileAttributes attributes;
+        try
+        {
+            attributes = Files.readAttributes(artifactPath.getTarget(), BasicFileAttributes.class);
+        }
+        catch (NoSuchFileException e)
+        {
+            return false;
+        }
+
+        if (!attributes.isRegularFile())
+        {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> checksums = (Map<String, String>) Files.getAttribute(artifactPath,
+                                                                                 RepositoryFileAttributes.CHECKSUMS);
+        String etag = getETag(checksums);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        boolean notModified = isNotModified(httpHeaders, etag, lastModified);
+        if (!notModified && !head)
+        {
+            return false;
+        }
+
+        ArtifactControllerHelper.setHeadersForValidators(etag, lastModified, response);
+
+        if (notModified)
+        {
+            logger.debug(artifactPath + " has not been modified.");
+
+            response.setStatus(NOT_MODIFIED.value());
+
+            return true;
+        }
+
         setMediaTypeHeader(path, response);
 
         response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Content-Length", Long.toString(attributes.size()));
 
-        ArtifactControllerHelper.setHeadersForChecksums(is, response);
+        ArtifactControllerHelper.setHeadersForChecksums(checksums, response);
 
-        logger.debug("Download succeeded.");
+        return true;
     }
 
     private void setMediaTypeHeader(String path,
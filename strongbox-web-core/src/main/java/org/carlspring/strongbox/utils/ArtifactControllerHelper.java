@@ -1,18 +1,28 @@
 package org.carlspring.strongbox.utils;
 
+import org.carlspring.commons.encryption.EncryptionAlgorithmsEnum;
 import org.carlspring.commons.http.range.ByteRange;
-import org.carlspring.commons.http.range.ByteRangeHeaderParser;
 import org.carlspring.strongbox.artifact.coordinates.ArtifactCoordinates;
 import org.carlspring.strongbox.io.ArtifactInputStream;
 import org.carlspring.strongbox.io.StreamUtils;
+import org.carlspring.strongbox.resource.ResourceCloser;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.HttpStatus.PARTIAL_CONTENT;
 import static org.springframework.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 
@@ -20,101 +30,423 @@ public class ArtifactControllerHelper
 {
 
     public static final String HEADER_NAME_RANGE = "Range";
+
+    public static final String HEADER_NAME_IF_RANGE = "If-Range";
+
     private static final Logger logger = LoggerFactory.getLogger(ArtifactControllerHelper.class);
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of ranges a <code>Range</code> header may have. Requests for more ranges are answered with
+     * the whole artifact, as a huge number of small ranges is a way to get the server to do a lot of work for little
+     * data (see RFC 7233, section 6.1).
+     */
+    public static final int MAX_RANGES = 100;
+
     private ArtifactControllerHelper()
     {
 
     }
 
+    /**
+     * Sends the byte ranges of the artifact which have been requested in the <code>Range</code> header: a single
+     * range is sent as is and multiple ones as a <code>multipart/byteranges</code> response. The ranges are sorted
+     * and the ones which overlap are merged, so the stream only has to be moved forward.
+     * <p>
+     * If the <code>Range</code> header is not valid, has more than {@link #MAX_RANGES} ranges, or the length of the
+     * artifact is not known, the whole artifact is sent instead, as allowed by RFC 7233. The content type of the artifact must already have been set.
+     */
     public static void handlePartialDownload(ArtifactInputStream is,
                                              HttpHeaders headers,
                                              HttpServletResponse response)
             throws IOException
     {
-        ByteRangeHeaderParser parser = new ByteRangeHeaderParser(headers.getFirst(HEADER_NAME_RANGE));
-        List<ByteRange> ranges = parser.getRanges();
-        if (ranges.size() == 1)
+        try
         {
-            logger.debug("Received request for a partial download with a single range.");
-            handlePartialDownloadWithSingleRange(is, (ByteRange) ranges.get(0), response);
+            long length = StreamUtils.getLength(is);
+            List<ByteRange> ranges = length > 0 ? parseRanges(headers.getFirst(HEADER_NAME_RANGE), length) : null;
+            if (ranges == null)
+            {
+                logger.debug("Unable to apply the requested ranges, sending the whole artifact.");
+
+                response.setStatus(OK.value());
+                if (length > 0)
+                {
+                    response.setHeader("Content-Length", Long.toString(length));
+                }
+
+                copy(is, response.getOutputStream());
+            }
+            else if (ranges.isEmpty())
+            {
+                response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader("Content-Range", "bytes */" + length);
+            }
+            else if (ranges.size() == 1)
+            {
+                logger.debug("Received request for a partial download with a single range.");
+
+                handlePartialDownloadWithSingleRange(is, ranges.get(0), length, response);
+            }
+            else
+            {
+                logger.debug("Received request for a partial download with multiple ranges.");
+
+                handlePartialDownloadWithMultipleRanges(is, ranges, length, response);
+            }
+
+            response.flushBuffer();
         }
-        else
+        finally
         {
-            logger.debug("Received request for a partial download with multiple ranges.");
-            handlePartialDownloadWithMultipleRanges(is, ranges, response);
+            ResourceCloser.close(is, logger);
         }
     }
 
     public static void handlePartialDownloadWithSingleRange(ArtifactInputStream is,
                                                             ByteRange byteRange,
+                                                            long length,
                                                             HttpServletResponse response)
             throws IOException
     {
+        long partialLength = calculatePartialRangeLength(byteRange, length);
+
+        logger.debug("Calculated partial range length ->>> " + partialLength);
+
+        response.setStatus(PARTIAL_CONTENT.value());
+        response.setHeader("Content-Length", Long.toString(partialLength));
+
+        prepareResponseBuilderForPartialRequest(byteRange, length, response);
+
+        StreamUtils.setCurrentByteRange(is, byteRange);
+
+        copy(is, response.getOutputStream());
+    }
 
-        long length = StreamUtils.getLength(is);
-        if (byteRange.getOffset() < length)
+    public static void handlePartialDownloadWithMultipleRanges(ArtifactInputStream is,
+                                                               List<ByteRange> byteRanges,
+                                                               long length,
+                                                               HttpServletResponse response)
+            throws IOException
+    {
+        String contentType = response.getContentType() != null ?
+                             response.getContentType() :
+                             "application/octet-stream";
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (ByteRange byteRange : byteRanges)
         {
-            long partialLength = calculatePartialRangeLength(byteRange, length);
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n" +
+                                 "Content-Type: " + contentType + "\r\n" +
+                                 "Content-Range: " + getContentRange(byteRange, length) + "\r\n" +
+                                 "\r\n").getBytes(StandardCharsets.US_ASCII);
 
-            logger.debug("Calculated partial range length ->>> " + partialLength + "\n");
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + calculatePartialRangeLength(byteRange, length);
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += end.length;
 
-            StreamUtils.setCurrentByteRange(is, byteRange);
+        response.setStatus(PARTIAL_CONTENT.value());
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setHeader("Content-Length", Long.toString(contentLength));
+        response.setHeader("Accept-Ranges", "bytes");
+
+        ServletOutputStream os = response.getOutputStream();
+        for (int i = 0; i < byteRanges.size(); i++)
+        {
+            os.write(partHeaders.get(i));
 
-            response.setHeader("Content-Length", partialLength + "");
-            response.setStatus(PARTIAL_CONTENT.value());
+            StreamUtils.setCurrentByteRange(is, byteRanges.get(i));
 
-            prepareResponseBuilderForPartialRequest(byteRange, length, response);
+            copy(is, os);
         }
-        else
+        os.write(end);
+    }
+
+    /**
+     * Resolves the byte ranges of the <code>Range</code> header against the length of the artifact. The offset of
+     * the resolved ranges is their first byte and the limit is the offset right after their last byte.
+     *
+     * @return the satisfiable ranges, sorted and with the overlapping and adjacent ones merged, or <code>null</code>,
+     *         if the header is not valid, or has more than {@link #MAX_RANGES} ranges
+     */
+    public static List<ByteRange> parseRanges(String header,
+                                              long length)
+    {
+        if (header == null || !header.trim().startsWith("bytes="))
         {
-            response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return null;
         }
+
+        String[] rangeSpecs = header.trim().substring("bytes=".length()).split(",");
+        if (rangeSpecs.length > MAX_RANGES)
+        {
+            logger.debug("Too many ranges requested (" + rangeSpecs.length + "), ignoring the Range header.");
+
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String range : rangeSpecs)
+        {
+            range = range.trim();
+
+            int separator = range.indexOf('-');
+            if (separator < 0)
+            {
+                return null;
+            }
+
+            String first = range.substring(0, separator).trim();
+            String last = range.substring(separator + 1).trim();
+
+            long offset;
+            long limit;
+            try
+            {
+                if (first.isEmpty())
+                {
+                    // The last N bytes.
+                    long suffixLength = Long.parseLong(last);
+                    if (suffixLength == 0)
+                    {
+                        continue;
+                    }
+
+                    offset = Math.max(0, length - suffixLength);
+                    limit = length;
+                }
+                else
+                {
+                    offset = Long.parseLong(first);
+                    limit = last.isEmpty() ? length : Math.min(Long.parseLong(last) + 1, length);
+
+                    if (!last.isEmpty() && Long.parseLong(last) < offset)
+                    {
+                        return null;
+                    }
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+
+            if (offset < 0)
+            {
+                return null;
+            }
+
+            if (offset < length)
+            {
+                ranges.add(new ByteRange(offset, limit));
+            }
+        }
+
+        ranges.sort(Comparator.comparingLong(ByteRange::getOffset));
+
+        List<ByteRange> result = new ArrayList<>();
+        for (ByteRange range : ranges)
+        {
+            ByteRange previous = result.isEmpty() ? null : result.get(result.size() - 1);
+            if (previous != null && range.getOffset() <= previous.getLimit())
+            {
+                previous.setLimit(Math.max(previous.getLimit(), range.getLimit()));
+            }
+            else
+            {
+                result.add(range);
+            }
+        }
+
+        return result;
     }
 
-    public static void handlePartialDownloadWithMultipleRanges(ArtifactInputStream is,
-                                                               List<ByteRange> byteRanges,
-                                                               HttpServletResponse response)
+    /**
+     * @return <code>true</code>, if the request either has no <code>If-Range</code> header, or its validator still
+     *         matches the artifact, in which case the <code>Range</code> header applies
+     */
+    public static boolean isIfRangeSatisfied(ArtifactInputStream is,
+                                             HttpHeaders headers)
             throws IOException
     {
-        // XXX: this is not implemented yet
-        response.setStatus(REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        String ifRange = headers.getFirst(HEADER_NAME_IF_RANGE);
+        if (ifRange == null)
+        {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+        {
+            // Only strong entity tags match.
+            String etag = getETag(is);
+
+            return etag != null && etag.equals(ifRange);
+        }
+
+        long lastModified = StreamUtils.getLastModified(is);
+        if (lastModified < 0)
+        {
+            return false;
+        }
+
+        try
+        {
+            // HTTP dates only have a precision of seconds.
+            return headers.getFirstDate(HEADER_NAME_IF_RANGE) / 1000 == lastModified / 1000;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return a strong entity tag derived from the stored checksum of the artifact, or <code>null</code>, if the
+     *         artifact has no stored checksum
+     */
+    public static String getETag(ArtifactInputStream is)
+    {
+        return getETag(is.getHexDigests());
     }
 
-    public static long calculatePartialRangeLength(ByteRange byteRange,
-                                                   long length)
+    /**
+     * @param checksums the stored checksums of the artifact (K: the digest algorithm, V: the checksum)
+     * @return a strong entity tag derived from the checksums, or <code>null</code>, if there are none
+     */
+    public static String getETag(Map<String, String> checksums)
     {
-        if (byteRange.getLimit() > 0L && byteRange.getOffset() > 0L)
+        String checksum = checksums.get(EncryptionAlgorithmsEnum.SHA1.getAlgorithm());
+        if (checksum == null)
         {
-            logger.debug("Partial content byteRange.getOffset: " + byteRange.getOffset());
-            logger.debug("Partial content byteRange.getLimit: " + byteRange.getLimit());
-            logger.debug("Partial content length: " + (byteRange.getLimit() - byteRange.getOffset()));
+            checksum = checksums.get(EncryptionAlgorithmsEnum.MD5.getAlgorithm());
+        }
+
+        return checksum != null ? "\"" + checksum + "\"" : null;
+    }
 
-            return byteRange.getLimit() - byteRange.getOffset();
+    /**
+     * Evaluates the <code>If-None-Match</code> and, in its absence, the <code>If-Modified-Since</code> header of a
+     * request for an existing artifact, as described in RFC 7232.
+     *
+     * @return <code>true</code>, if the client's copy of the artifact is up to date
+     */
+    public static boolean isNotModified(HttpHeaders headers,
+                                        String etag,
+                                        long lastModified)
+    {
+        String ifNoneMatch = headers.getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null)
+        {
+            for (String tag : ifNoneMatch.split(","))
+            {
+                tag = tag.trim();
+                if ("*".equals(tag))
+                {
+                    return true;
+                }
+
+                // The comparison is weak.
+                if (tag.startsWith("W/"))
+                {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(etag))
+                {
+                    return true;
+                }
+            }
+
+            return false;
         }
-        else if (length > 0L && byteRange.getOffset() > 0L && byteRange.getLimit() == 0L)
+
+        if (lastModified <= 0)
         {
-            logger.debug("Partial content length: " + (length - byteRange.getOffset()));
-            return length - byteRange.getOffset();
+            return false;
         }
-        else
+
+        try
+        {
+            long ifModifiedSince = headers.getFirstDate(HttpHeaders.IF_MODIFIED_SINCE);
+
+            // HTTP dates only have a precision of seconds.
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+    public static void setHeadersForValidators(ArtifactInputStream is,
+                                               HttpServletResponse response)
+            throws IOException
+    {
+        setHeadersForValidators(getETag(is), StreamUtils.getLastModified(is), response);
+    }
+
+    public static void setHeadersForValidators(String etag,
+                                               long lastModified,
+                                               HttpServletResponse response)
+    {
+        if (etag != null)
+        {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+
+        if (lastModified > 0)
         {
-            return -1L;
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
         }
     }
 
+    public static long calculatePartialRangeLength(ByteRange byteRange,
+                                                   long length)
+    {
+        long limit = byteRange.getLimit() > 0L ? byteRange.getLimit() : length;
+
+        logger.debug("Partial content byteRange.getOffset: " + byteRange.getOffset());
+        logger.debug("Partial content byteRange.getLimit: " + limit);
+
+        return limit - byteRange.getOffset();
+    }
+
     public static void prepareResponseBuilderForPartialRequest(ByteRange br,
                                                                long length,
                                                                HttpServletResponse response)
     {
         response.setHeader("Accept-Ranges", "bytes");
-        response.setHeader("Content-Range",
-                           "bytes " + br.getOffset() + "-" + (length - 1L) + "/" + length);
+        response.setHeader("Content-Range", getContentRange(br, length));
 
         logger.debug("Content-Range HEADER ->>> " + response.getHeader("Content-Range"));
         response.setHeader("Pragma", "no-cache");
     }
 
+    private static String getContentRange(ByteRange br,
+                                          long length)
+    {
+        long limit = br.getLimit() > 0L ? br.getLimit() : length;
+
+        return "bytes " + br.getOffset() + "-" + (limit - 1L) + "/" + length;
+    }
+
+    private static void copy(InputStream is,
+                             OutputStream os)
+            throws IOException
+    {
+        int readLength;
+        byte[] bytes = new byte[COPY_BUFFER_SIZE];
+        while ((readLength = is.read(bytes, 0, bytes.length)) != -1)
+        {
+            os.write(bytes, 0, readLength);
+        }
+    }
+
     public static boolean isRangedRequest(HttpHeaders headers)
     {
         if (headers == null)
@@ -133,12 +465,17 @@ public class ArtifactControllerHelper
     public static void setHeadersForChecksums(ArtifactInputStream ais,
                                               HttpServletResponse response)
     {
-        ais.getHexDigests()
-           .forEach((k,
-                     v) -> response.setHeader(String.format("Checksum-%s",
-                                                            k.toUpperCase()
-                                                             .replaceAll("-", "")),
-                                              v));
+        setHeadersForChecksums(ais.getHexDigests(), response);
+    }
+
+    public static void setHeadersForChecksums(Map<String, String> checksums,
+                                              HttpServletResponse response)
+    {
+        checksums.forEach((k,
+                           v) -> response.setHeader(String.format("Checksum-%s",
+                                                                  k.toUpperCase()
+                                                                   .replaceAll("-", "")),
+                                                    v));
 
     }
 
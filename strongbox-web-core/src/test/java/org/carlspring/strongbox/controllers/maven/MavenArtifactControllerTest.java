@@ -226,6 +226,23 @@ public class MavenArtifactControllerTest
         resolveArtifact(artifactPath, "1.10");
     }
 
+    /**
+     * Note: This test requires access to the Internet.
+     */
+    @Test
+    public void testHeadViaProxyOfArtifactWhichIsNotCachedYet()
+    {
+        String url = getContextBaseUrl() + "/storages/storage-common-proxies/group-common-proxies/" +
+                     "org/carlspring/maven/derby-maven-plugin/1.8/derby-maven-plugin-1.8.pom";
+
+        int statusCode = given().header("user-agent", "Maven/*")
+                                .when()
+                                .head(url)
+                                .getStatusCode();
+
+        assertEquals("Failed to find an artifact which is only available remotely!", 200, statusCode);
+    }
+
     private void resolveArtifact(String artifactPath, String version)
             throws NoSuchAlgorithmException, IOException
     {
@@ -696,6 +713,9 @@ public class MavenArtifactControllerTest
         artifactDeployer.generateAndDeployArtifact(artifact2, STORAGE0, REPOSITORY_RELEASES2);
         artifactDeployer.generateAndDeployArtifact(artifact3, STORAGE0, REPOSITORY_RELEASES2);
 
+        // The deployed artifacts are added to the index in the background.
+        flushIndex(STORAGE0, REPOSITORY_RELEASES2);
+
         // Run a search against the index and get a list of all the artifacts matching this exact GAV
         SearchRequest request = new SearchRequest(STORAGE0,
                                                   REPOSITORY_RELEASES2,
@@ -0,0 +1,103 @@
+package org.carlspring.strongbox.utils;
+
+import org.carlspring.commons.http.range.ByteRange;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArtifactControllerHelperTest
+{
+
+    @Test
+    public void testParseRanges()
+    {
+        List<ByteRange> ranges = ArtifactControllerHelper.parseRanges("bytes=500-599, 0-99,-100, 50-149", 1000);
+
+        assertEquals(3, ranges.size());
+        assertRange(0, 150, ranges.get(0));
+        assertRange(500, 600, ranges.get(1));
+        assertRange(900, 1000, ranges.get(2));
+
+        ranges = ArtifactControllerHelper.parseRanges("bytes=900-", 1000);
+
+        assertEquals(1, ranges.size());
+        assertRange(900, 1000, ranges.get(0));
+
+        // Ranges which go past the end are truncated.
+        ranges = ArtifactControllerHelper.parseRanges("bytes=0-0,990-2000", 1000);
+
+        assertEquals(2, ranges.size());
+        assertRange(0, 1, ranges.get(0));
+        assertRange(990, 1000, ranges.get(1));
+    }
+
+    @Test
+    public void testParseUnsatisfiableRanges()
+    {
+        assertTrue(ArtifactControllerHelper.parseRanges("bytes=1000-1100", 1000).isEmpty());
+    }
+
+    @Test
+    public void testParseInvalidRanges()
+    {
+        assertNull(ArtifactControllerHelper.parseRanges("items=0-10", 1000));
+        assertNull(ArtifactControllerHelper.parseRanges("bytes=10-5", 1000));
+        assertNull(ArtifactControllerHelper.parseRanges("bytes=abc", 1000));
+    }
+
+    @Test
+    public void testParseTooManyRanges()
+    {
+        StringBuilder header = new StringBuilder("bytes=0-0");
+        for (int i = 1; i < ArtifactControllerHelper.MAX_RANGES; i++)
+        {
+            header.append(",").append(i * 2).append("-").append(i * 2);
+        }
+
+        assertEquals(ArtifactControllerHelper.MAX_RANGES,
+                     ArtifactControllerHelper.parseRanges(header.toString(), 1000).size());
+
+        header.append(",999-999");
+
+        assertNull(ArtifactControllerHelper.parseRanges(header.toString(), 1000));
+    }
+
+    @Test
+    public void testIsNotModified()
+    {
+        long lastModified = System.currentTimeMillis();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(Arrays.asList("\"foo\"", "W/\"bar\""));
+
+        assertTrue(ArtifactControllerHelper.isNotModified(headers, "\"bar\"", lastModified));
+        assertFalse(ArtifactControllerHelper.isNotModified(headers, "\"baz\"", lastModified));
+
+        // If-None-Match takes precedence over If-Modified-Since.
+        headers.setIfModifiedSince(lastModified);
+
+        assertFalse(ArtifactControllerHelper.isNotModified(headers, "\"baz\"", lastModified));
+
+        headers = new HttpHeaders();
+        headers.setIfModifiedSince(lastModified);
+
+        assertTrue(ArtifactControllerHelper.isNotModified(headers, null, lastModified));
+        assertFalse(ArtifactControllerHelper.isNotModified(headers, null, lastModified + 5000));
+    }
+
+    private void assertRange(long offset,
+                             long limit,
+                             ByteRange range)
+    {
+        assertEquals(offset, range.getOffset());
+        assertEquals(limit, range.getLimit());
+    }
+
+}